@@ -0,0 +1,110 @@
+package com.chaosgaming.velocityuuidforwarder.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Builds signed Velocity modern forwarding payloads for benchmarks.
+ */
+public final class ForwardingPayloads {
+
+    public static final String SECRET = "EgAbmtTT4qGk";
+
+    private ForwardingPayloads() {
+    }
+
+    /**
+     * Create a signed payload with the given number of extra properties besides
+     * {@code textures}. Texture values are random base64-sized strings of the
+     * given length, roughly what Mojang returns for a player with a custom skin.
+     */
+    public static ByteBuf create(int textureLength, int extraProperties) throws Exception {
+        return create(textureLength, extraProperties, 1);
+    }
+
+    /**
+     * Like {@link #create(int, int)} for a specific forwarding version; versions 2 and 3
+     * carry a 1.19-sized chat key, version 3 also its signer UUID.
+     */
+    public static ByteBuf create(int textureLength, int extraProperties, int version) throws Exception {
+        Random random = new Random(42);
+        ByteBuf body = Unpooled.buffer();
+        writeVarInt(body, version);
+        writeString(body, "203.0.113.42");
+        UUID uuid = new UUID(random.nextLong(), random.nextLong());
+        body.writeLong(uuid.getMostSignificantBits());
+        body.writeLong(uuid.getLeastSignificantBits());
+        writeString(body, "Chaosgaming91");
+
+        writeVarInt(body, 1 + extraProperties);
+        writeString(body, "textures");
+        writeString(body, randomBase64(random, textureLength));
+        writeString(body, randomBase64(random, 684));
+        for (int i = 0; i < extraProperties; i++) {
+            writeString(body, "property" + i);
+            writeString(body, randomBase64(random, 64));
+            writeString(body, "");
+        }
+
+        if (version == 2 || version == 3) {
+            body.writeLong(System.currentTimeMillis() + 86_400_000L);
+            writeByteArray(body, randomBytes(random, 294));
+            writeByteArray(body, randomBytes(random, 512));
+            if (version == 3) {
+                body.writeBoolean(true);
+                body.writeLong(uuid.getMostSignificantBits());
+                body.writeLong(uuid.getLeastSignificantBits());
+            }
+        }
+
+        byte[] signed = new byte[body.readableBytes()];
+        body.getBytes(0, signed);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+
+        ByteBuf payload = Unpooled.buffer(32 + signed.length);
+        payload.writeBytes(mac.doFinal(signed));
+        payload.writeBytes(signed);
+        return payload;
+    }
+
+    private static String randomBase64(Random random, int length) {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void writeByteArray(ByteBuf buf, byte[] bytes) {
+        writeVarInt(buf, bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    private static void writeString(ByteBuf buf, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(buf, bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    private static void writeVarInt(ByteBuf buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+}
@@ -0,0 +1,76 @@
+package com.chaosgaming.velocityuuidforwarder.util;
+
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-handshake HMAC cost: a fresh {@link Mac} per login (the previous
+ * implementation) versus the {@link ForwardingKeyRing} and its thread-confined, pre-keyed verifiers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForwardingSignatureVerifierBenchmark {
+
+    @Param({"0", "1200"})
+    public int textureLength;
+
+    private ByteBuf payload;
+    private int dataLength;
+    private byte[] signature;
+    private byte[] signedData;
+    private ForwardingKeyRing keyRing;
+    private ForwardingKeyRing rotatingKeyRing;
+
+    @Setup
+    public void setup() throws Exception {
+        payload = ForwardingPayloads.create(textureLength, 0);
+        dataLength = payload.writerIndex() - ForwardingSignatureVerifier.SIGNATURE_LENGTH;
+        signature = new byte[ForwardingSignatureVerifier.SIGNATURE_LENGTH];
+        payload.getBytes(0, signature);
+        signedData = new byte[dataLength];
+        payload.getBytes(ForwardingSignatureVerifier.SIGNATURE_LENGTH, signedData);
+        keyRing = ForwardingKeyRing.forSecrets(List.of(ForwardingPayloads.SECRET));
+        rotatingKeyRing = ForwardingKeyRing.forSecrets(List.of("retiredSecret", ForwardingPayloads.SECRET));
+    }
+
+    @TearDown
+    public void tearDown() {
+        payload.release();
+    }
+
+    @Benchmark
+    public boolean freshMacPerHandshake() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(ForwardingPayloads.SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return MessageDigest.isEqual(mac.doFinal(signedData), signature);
+    }
+
+    @Benchmark
+    public boolean singleKeyRing() {
+        return keyRing.verify(payload, 0, ForwardingSignatureVerifier.SIGNATURE_LENGTH, dataLength);
+    }
+
+    @Benchmark
+    public boolean keyRingLookup() {
+        // Includes the per-login cache check the mixin does through ForwardingKeyRing.forSecrets()
+        return ForwardingKeyRing.forSecrets(List.of(ForwardingPayloads.SECRET))
+                .verify(payload, 0, ForwardingSignatureVerifier.SIGNATURE_LENGTH, dataLength);
+    }
+
+    @Benchmark
+    public boolean keyRingDuringRotation() {
+        // Second key matches; after the first call it is preferred and costs one HMAC
+        return rotatingKeyRing.verify(payload, 0, ForwardingSignatureVerifier.SIGNATURE_LENGTH, dataLength);
+    }
+}
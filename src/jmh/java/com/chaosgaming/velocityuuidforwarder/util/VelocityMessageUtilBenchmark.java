@@ -0,0 +1,55 @@
+package com.chaosgaming.velocityuuidforwarder.util;
+
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of parsing and verifying one modern forwarding payload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VelocityMessageUtilBenchmark {
+
+    // 0: no skin, ~1.2 KB: typical skin, ~8 KB: skin plus cape and large metadata
+    @Param({"0", "1200", "8000"})
+    public int textureLength;
+
+    // 1: default layout, 3: with chat key and signer UUID
+    @Param({"1", "3"})
+    public int forwardingVersion;
+
+    private ByteBuf payload;
+    private ForwardingKeyRing keyRing;
+
+    @Setup
+    public void setup() throws Exception {
+        payload = ForwardingPayloads.create(textureLength, 2, forwardingVersion);
+        keyRing = ForwardingKeyRing.forSecrets(List.of(ForwardingPayloads.SECRET));
+    }
+
+    @TearDown
+    public void tearDown() {
+        payload.release();
+    }
+
+    @Benchmark
+    public VelocityMessageUtil.ForwardingData readForwardingData() {
+        payload.readerIndex(0);
+        return VelocityMessageUtil.readForwardingData(payload, keyRing);
+    }
+
+    @Benchmark
+    public int parseIntoProfile() {
+        // Decode, building the profile and its properties as the mixin does
+        payload.readerIndex(ForwardingSignatureVerifier.SIGNATURE_LENGTH);
+        VelocityMessageUtil.ForwardingData data = VelocityMessageUtil.parseForwardingData(payload);
+        return data.getProfile().getProperties().size();
+    }
+}
@@ -0,0 +1,48 @@
+package de.craftingworld.velocityuuidsync;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the offline-mode server check done on server connects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigManagerBenchmark {
+
+    private Path dataDirectory;
+    private ConfigManager configManager;
+
+    @Setup
+    public void setup() throws IOException {
+        dataDirectory = Files.createTempDirectory("uuid-sync-config-bench");
+        Files.writeString(dataDirectory.resolve("config.properties"),
+                "offline-mode-servers=create,minigames,creative,event,skyblock,bedwars,survival,lobby2\n");
+        configManager = new ConfigManager(dataDirectory);
+        configManager.loadConfig();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dataDirectory.resolve("config.properties"));
+        Files.deleteIfExists(dataDirectory);
+    }
+
+    @Benchmark
+    public boolean isOfflineModeServerHit() {
+        return configManager.isOfflineModeServer("Survival");
+    }
+
+    @Benchmark
+    public boolean isOfflineModeServerMiss() {
+        return configManager.isOfflineModeServer("lobby");
+    }
+}
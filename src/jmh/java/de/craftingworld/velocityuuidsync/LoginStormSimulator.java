@@ -0,0 +1,323 @@
+package de.craftingworld.velocityuuidsync;
+
+import com.velocitypowered.api.command.Command;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.CommandMeta;
+import com.velocitypowered.api.event.Continuation;
+import com.velocitypowered.api.event.EventTask;
+import com.velocitypowered.api.event.connection.LoginEvent;
+import com.velocitypowered.api.event.player.GameProfileRequestEvent;
+import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import com.velocitypowered.api.scheduler.Scheduler;
+import de.craftingworld.velocityuuidsync.metrics.LatencyHistogram;
+import de.craftingworld.velocityuuidsync.storage.StorageEngine;
+import de.craftingworld.velocityuuidsync.storage.UuidMapping;
+import de.craftingworld.velocityuuidsync.storage.UuidStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Replays a reconnect storm against a real {@link VelocityUuidSync} instance and a temp-dir database.
+ *
+ * <p>Each simulated login runs on its own virtual thread and fires the same events Velocity does:
+ * {@link GameProfileRequestEvent} followed by {@link LoginEvent}. Logins are started at a fixed
+ * target rate (open loop), so a slow plugin shows up as growing end-to-end latency instead of
+ * silently lowering the offered load.</p>
+ *
+ * <p>Options are {@code key=value} arguments, e.g. {@code rate=20000 duration=30 returning=0.8}:</p>
+ * <ul>
+ *     <li>{@code rate}: logins started per second (default 10000)</li>
+ *     <li>{@code duration}: seconds of load (default 20)</li>
+ *     <li>{@code players}: returning players stored before the storm (default 100000)</li>
+ *     <li>{@code returning}: fraction of logins by returning players (default 0.8)</li>
+ *     <li>any other key is written to the plugin's config.properties, e.g. {@code storage-engine=mmap}</li>
+ * </ul>
+ */
+public class LoginStormSimulator {
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    private static final int SEED_BATCH_SIZE = 10000;
+
+    private final int rate;
+    private final int durationSeconds;
+    private final int players;
+    private final double returningFraction;
+    private final Properties pluginConfig = new Properties();
+
+    private final LatencyHistogram gameProfileRequestLatency = new LatencyHistogram();
+    private final LatencyHistogram loginLatency = new LatencyHistogram();
+    private final LatencyHistogram endToEndLatency = new LatencyHistogram();
+    private final AtomicLong newPlayerIds = new AtomicLong();
+    private final AtomicLong defaultProfiles = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private String[] usernames;
+    private UUID[] uuids;
+
+    private LoginStormSimulator(Map<String, String> options) {
+        this.rate = Integer.parseInt(options.getOrDefault("rate", "10000"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "20"));
+        this.players = Integer.parseInt(options.getOrDefault("players", "100000"));
+        this.returningFraction = Double.parseDouble(options.getOrDefault("returning", "0.8"));
+
+        // Metrics export needs a real scheduler; everything else is the plugin's own default
+        pluginConfig.setProperty("metrics-export-interval-seconds", "0");
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            if (!List.of("rate", "duration", "players", "returning").contains(option.getKey())) {
+                pluginConfig.setProperty(option.getKey(), option.getValue());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        new LoginStormSimulator(options).run();
+    }
+
+    private void run() throws Exception {
+        Logger logger = LoggerFactory.getLogger(LoginStormSimulator.class);
+        Path dataDirectory = Files.createTempDirectory("uuid-sync-storm");
+        try {
+            try (OutputStream output = Files.newOutputStream(dataDirectory.resolve("config.properties"))) {
+                pluginConfig.store(output, "Login storm simulator");
+            }
+            seed(dataDirectory, logger);
+
+            VelocityUuidSync plugin = new VelocityUuidSync(new SimulatedProxy(), logger, dataDirectory);
+            plugin.onProxyInitialization(new ProxyInitializeEvent());
+            try {
+                storm(plugin);
+            } finally {
+                plugin.onProxyShutdown(new ProxyShutdownEvent());
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dataDirectory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Store the returning players directly, so the storm starts with a populated database and a cold cache.
+     */
+    private void seed(Path dataDirectory, Logger logger) throws Exception {
+        usernames = new String[players];
+        uuids = new UUID[players];
+        StorageEngine engine = StorageEngine.fromName(pluginConfig.getProperty("storage-engine", "sqlite"));
+        UuidStore store = engine.create(dataDirectory, logger);
+        try {
+            store.initialize();
+            List<UuidMapping> batch = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = 0; i < players; i++) {
+                usernames[i] = "Player" + i;
+                uuids[i] = UUID.randomUUID();
+                batch.add(new UuidMapping(usernames[i].toLowerCase(Locale.ROOT), uuids[i]));
+                if (batch.size() == SEED_BATCH_SIZE || i == players - 1) {
+                    store.putAll(batch);
+                    batch.clear();
+                }
+            }
+        } finally {
+            store.close();
+        }
+    }
+
+    private void storm(VelocityUuidSync plugin) {
+        long total = (long) rate * durationSeconds;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        System.out.printf(Locale.ROOT, "Login storm: %d logins at %d/s, %.0f%% returning out of %d stored players%n",
+                total, rate, returningFraction * 100, players);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long scheduled = start + i * intervalNanos;
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                executor.execute(() -> login(plugin, scheduled));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf(Locale.ROOT, "Completed in %.1f s: %.0f logins/s%n",
+                elapsed / 1e9, total / (elapsed / 1e9));
+        System.out.printf(Locale.ROOT, "%-22s %10s %10s %10s %10s %10s%n", "latency (ms)", "count", "p50", "p99", "p99.9", "max");
+        report("game_profile_request", gameProfileRequestLatency);
+        report("login", loginLatency);
+        report("end_to_end", endToEndLatency);
+        System.out.printf(Locale.ROOT, "Returning players given the default profile: %d, handler failures: %d%n",
+                defaultProfiles.get(), failures.get());
+    }
+
+    /**
+     * One player joining: profile request, then login, each awaited like Velocity's event manager would.
+     */
+    private void login(VelocityUuidSync plugin, long scheduledNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean returning = players > 0 && random.nextDouble() < returningFraction;
+        String username;
+        UUID uuid;
+        if (returning) {
+            int player = random.nextInt(players);
+            username = usernames[player];
+            uuid = uuids[player];
+        } else {
+            username = "New" + newPlayerIds.incrementAndGet();
+            uuid = UUID.randomUUID();
+        }
+
+        try {
+            long start = System.nanoTime();
+            GameProfileRequestEvent profileRequest = new GameProfileRequestEvent(username);
+            await(plugin.onGameProfileRequest(profileRequest));
+            gameProfileRequestLatency.recordSince(start);
+            if (returning && !uuid.equals(profileRequest.getGameProfile().getId())) {
+                defaultProfiles.incrementAndGet();
+            }
+
+            start = System.nanoTime();
+            await(plugin.onLogin(new LoginEvent(new SimulatedPlayer(username, uuid))));
+            loginLatency.recordSince(start);
+        } catch (Exception e) {
+            failures.incrementAndGet();
+        }
+        endToEndLatency.recordSince(scheduledNanos);
+    }
+
+    private static void await(EventTask task) {
+        if (task == null) {
+            return;
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        task.execute(new Continuation() {
+            @Override
+            public void resume() {
+                done.complete(null);
+            }
+
+            @Override
+            public void resumeWithException(Throwable exception) {
+                done.completeExceptionally(exception);
+            }
+        });
+        done.join();
+    }
+
+    private static void report(String name, LatencyHistogram histogram) {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-22s %10d", name, snapshot.getCount()));
+        for (double quantile : QUANTILES) {
+            line.append(String.format(Locale.ROOT, " %10.3f", snapshot.getValueAtQuantile(quantile) / 1e6));
+        }
+        line.append(String.format(Locale.ROOT, " %10.3f", snapshot.getMax() / 1e6));
+        System.out.println(line);
+    }
+
+    private record SimulatedPlayer(String username, UUID uuid) implements Player {
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        @Override
+        public UUID getUniqueId() {
+            return uuid;
+        }
+    }
+
+    /**
+     * Just enough of a proxy for the plugin to start: commands are accepted and ignored,
+     * and scheduled tasks never run.
+     */
+    private static final class SimulatedProxy implements ProxyServer {
+        @Override
+        public CommandManager getCommandManager() {
+            return new CommandManager() {
+                @Override
+                public CommandMeta.Builder metaBuilder(String alias) {
+                    return new CommandMeta.Builder() {
+                        @Override
+                        public CommandMeta.Builder aliases(String... aliases) {
+                            return this;
+                        }
+
+                        @Override
+                        public CommandMeta.Builder plugin(Object plugin) {
+                            return this;
+                        }
+
+                        @Override
+                        public CommandMeta build() {
+                            return new CommandMeta() {
+                            };
+                        }
+                    };
+                }
+
+                @Override
+                public void register(CommandMeta meta, Command command) {
+                }
+
+                @Override
+                public void unregister(String alias) {
+                }
+            };
+        }
+
+        @Override
+        public Scheduler getScheduler() {
+            return (plugin, runnable) -> new Scheduler.TaskBuilder() {
+                @Override
+                public Scheduler.TaskBuilder delay(long time, TimeUnit unit) {
+                    return this;
+                }
+
+                @Override
+                public Scheduler.TaskBuilder repeat(long time, TimeUnit unit) {
+                    return this;
+                }
+
+                @Override
+                public ScheduledTask schedule() {
+                    return () -> {
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package de.craftingworld.velocityuuidsync;
+
+import de.craftingworld.velocityuuidsync.storage.StorageEngine;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Lookup and upsert cost of {@link UuidStorageManager} against a temp-dir database.
+ * A cache size of 0 measures the storage engine on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UuidStorageManagerBenchmark {
+
+    private static final int PLAYERS = 100000;
+
+    @Param({"sqlite", "mmap"})
+    public String engine;
+
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    private Path dataDirectory;
+    private UuidStorageManager storageManager;
+    private String[] usernames;
+    private UUID[] uuids;
+
+    @Setup
+    public void setup() throws Exception {
+        Logger logger = LoggerFactory.getLogger(UuidStorageManagerBenchmark.class);
+        dataDirectory = Files.createTempDirectory("uuid-sync-bench");
+        storageManager = new UuidStorageManager(StorageEngine.fromName(engine).create(dataDirectory, logger),
+                logger, cacheSize);
+        storageManager.initialize();
+
+        usernames = new String[PLAYERS];
+        uuids = new UUID[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            usernames[i] = "Player" + i;
+            uuids[i] = UUID.randomUUID();
+            storageManager.storeUuidMapping(usernames[i], uuids[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        storageManager.close();
+        try (Stream<Path> files = Files.walk(dataDirectory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Returning players, drawn from a hot set that fits in the default cache.
+     */
+    @Benchmark
+    public UUID getUuidReturning() throws Exception {
+        return storageManager.getUuid(usernames[ThreadLocalRandom.current().nextInt(5000)]);
+    }
+
+    /**
+     * Uniformly random known players, mostly missing the cache.
+     */
+    @Benchmark
+    public UUID getUuidUniform() throws Exception {
+        return storageManager.getUuid(usernames[ThreadLocalRandom.current().nextInt(PLAYERS)]);
+    }
+
+    @Benchmark
+    public UUID getUuidUnknown() throws Exception {
+        return storageManager.getUuid("New" + ThreadLocalRandom.current().nextInt(PLAYERS));
+    }
+
+    @Benchmark
+    public void storeUuidMapping() throws Exception {
+        int i = ThreadLocalRandom.current().nextInt(PLAYERS);
+        storageManager.storeUuidMapping(usernames[i], uuids[i]);
+    }
+}
@@ -1,14 +1,41 @@
 package com.chaosgaming.velocityuuidforwarder;
 
+import com.chaosgaming.velocityuuidforwarder.command.ForwarderCommand;
+import com.chaosgaming.velocityuuidforwarder.config.ConfigWatcher;
 import com.chaosgaming.velocityuuidforwarder.config.ModConfig;
+import com.chaosgaming.velocityuuidforwarder.stats.ForwardingStats;
+import com.chaosgaming.velocityuuidforwarder.util.ForwardingKeyRing;
+import com.chaosgaming.velocityuuidforwarder.util.VelocityMessageUtil;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
+import net.fabricmc.fabric.api.networking.v1.ServerLoginConnectionEvents;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.Identifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 public class VelocityUUIDForwarder implements ModInitializer {
     public static final String MOD_ID = "velocityuuidforwarder";
     public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
-    private static ModConfig config;
+    /** Login query channel Velocity answers with the signed forwarding data */
+    public static final Identifier PLAYER_INFO_CHANNEL = Identifier.of("velocity", "player_info");
+    private static final ForwardingStats STATS = new ForwardingStats();
+    // Runs the stats dump and debounced config reloads
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "velocity-uuid-forwarder-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile ModConfig config;
+    private static ScheduledFuture<?> statsDump;
 
     @Override
     public void onInitialize() {
@@ -18,17 +45,98 @@ public class VelocityUUIDForwarder implements ModInitializer {
         config = ModConfig.load();
         
         // Validate configuration
-        if ("CHANGE_ME".equals(config.getSecret())) {
+        if (config.getActiveSecrets().isEmpty()) {
             LOGGER.error("!!! WARNING: Velocity forwarding secret is set to default value!");
             LOGGER.error("!!! Please change the secret in config/velocity-uuid-forwarder.toml");
             LOGGER.error("!!! Connections will be rejected until the secret is properly configured.");
         } else {
             LOGGER.info("Velocity UUID Forwarder initialized successfully!");
             LOGGER.info("Debug mode: {}", config.isDebug());
+            if (config.getActiveSecrets().size() > 1) {
+                LOGGER.info("Accepting {} forwarding secrets for key rotation", config.getActiveSecrets().size());
+            }
+        }
+        
+        // Pick up config edits (e.g. a rotated secret) without a restart
+        try {
+            new ConfigWatcher(Path.of(ModConfig.CONFIG_PATH), VelocityUUIDForwarder::applyReloadedConfig, SCHEDULER).start();
+        } catch (IOException e) {
+            LOGGER.warn("Config hot reload unavailable: {}", e.getMessage());
+        }
+        
+        // Ask the proxy for the forwarding data, advertising the highest version this mod can parse;
+        // the answer is read by ServerLoginNetworkHandlerMixin
+        ServerLoginConnectionEvents.QUERY_START.register((handler, server, sender, synchronizer) -> {
+            PacketByteBuf request = PacketByteBufs.create();
+            VelocityMessageUtil.writeForwardingRequest(request);
+            sender.sendPacket(PLAYER_INFO_CHANNEL, request);
+        });
+        
+        CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) ->
+                ForwarderCommand.register(dispatcher));
+        
+        scheduleStatsDump(config.getStatsIntervalMinutes());
+    }
+    
+    private static void applyReloadedConfig(ModConfig reloaded) {
+        ModConfig previous = config;
+        config = reloaded;
+        LOGGER.info("Reloaded {}", ModConfig.CONFIG_PATH);
+        if (reloaded.getStatsIntervalMinutes() != previous.getStatsIntervalMinutes()) {
+            scheduleStatsDump(reloaded.getStatsIntervalMinutes());
+        }
+        if (reloaded.getActiveSecrets().isEmpty()) {
+            LOGGER.error("!!! Forwarding secret is set to the default value, connections will be rejected");
+        } else {
+            LOGGER.info("Accepting {} forwarding secret(s)", reloaded.getActiveSecrets().size());
+        }
+    }
+    
+    /**
+     * Log the handshake summary periodically, skipping intervals without new handshakes.
+     * Replaces the previous schedule, so a reloaded interval takes effect right away.
+     */
+    private static synchronized void scheduleStatsDump(long intervalMinutes) {
+        if (statsDump != null) {
+            statsDump.cancel(false);
+            statsDump = null;
+        }
+        if (intervalMinutes <= 0) {
+            return;
         }
+        
+        long[] lastTotal = {STATS.getTotalHandshakes()};
+        statsDump = SCHEDULER.scheduleAtFixedRate(() -> {
+            long total = STATS.getTotalHandshakes();
+            if (total == lastTotal[0]) {
+                return;
+            }
+            lastTotal[0] = total;
+            LOGGER.info("Forwarding handshake stats:");
+            for (String line : STATS.summaryLines()) {
+                LOGGER.info("  {}", line);
+            }
+            for (String line : getKeyRing().summaryLines()) {
+                LOGGER.info("  {}", line);
+            }
+        }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
     }
     
+    /**
+     * The active config snapshot. Read it once per operation; a reload swaps in a new instance.
+     */
     public static ModConfig getConfig() {
         return config;
     }
+    
+    public static ForwardingStats getStats() {
+        return STATS;
+    }
+    
+    /**
+     * Verifiers for all active secrets; rebuilt only when the secrets change.
+     */
+    public static ForwardingKeyRing getKeyRing() {
+        return ForwardingKeyRing.forSecrets(config.getActiveSecrets());
+    }
 }
@@ -0,0 +1,34 @@
+package com.chaosgaming.velocityuuidforwarder.command;
+
+import com.chaosgaming.velocityuuidforwarder.VelocityUUIDForwarder;
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.CommandDispatcher;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+
+/**
+ * /velocityforwarder stats - prints handshake outcome counts, per-stage timings and
+ * how many handshakes each forwarding secret matched.
+ */
+public final class ForwarderCommand {
+    
+    private ForwarderCommand() {
+    }
+    
+    public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+        dispatcher.register(CommandManager.literal("velocityforwarder")
+                .requires(source -> source.hasPermissionLevel(2))
+                .then(CommandManager.literal("stats")
+                        .executes(context -> {
+                            ServerCommandSource source = context.getSource();
+                            for (String line : VelocityUUIDForwarder.getStats().summaryLines()) {
+                                source.sendFeedback(() -> Text.literal(line), false);
+                            }
+                            for (String line : VelocityUUIDForwarder.getKeyRing().summaryLines()) {
+                                source.sendFeedback(() -> Text.literal(line), false);
+                            }
+                            return Command.SINGLE_SUCCESS;
+                        })));
+    }
+}
@@ -0,0 +1,89 @@
+package com.chaosgaming.velocityuuidforwarder.config;
+
+import com.chaosgaming.velocityuuidforwarder.VelocityUUIDForwarder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reloads the config file when it changes on disk and hands the new snapshot to a callback.
+ * Every change pushes the reload back by {@link #QUIET_MS}, so it runs once the file has been
+ * quiet for that long. A file that fails to parse is reported, the previous config stays
+ * active, and the next change to the file tries again.
+ */
+public class ConfigWatcher {
+    private static final long QUIET_MS = 250;
+    
+    private final Path configFile;
+    private final Consumer<ModConfig> onReload;
+    private final ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> pendingReload;
+    
+    public ConfigWatcher(Path configFile, Consumer<ModConfig> onReload, ScheduledExecutorService scheduler) {
+        this.configFile = configFile.toAbsolutePath();
+        this.onReload = onReload;
+        this.scheduler = scheduler;
+    }
+    
+    public void start() throws IOException {
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        // Editors often replace the file instead of writing it in place, so watch creates too
+        configFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        
+        Thread thread = new Thread(() -> watch(watchService), "velocity-uuid-forwarder-config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private void watch(WatchService watchService) {
+        Path fileName = configFile.getFileName();
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (fileName.equals(event.context())) {
+                    scheduleReload();
+                }
+            }
+            if (!key.reset()) {
+                VelocityUUIDForwarder.LOGGER.warn("Config directory {} is no longer accessible, hot reload stopped", configFile.getParent());
+                return;
+            }
+        }
+    }
+    
+    private synchronized void scheduleReload() {
+        if (pendingReload != null) {
+            pendingReload.cancel(false);
+        }
+        pendingReload = scheduler.schedule(this::reload, QUIET_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    private void reload() {
+        File file = configFile.toFile();
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            onReload.accept(ModConfig.read(file));
+        } catch (Exception e) {
+            VelocityUUIDForwarder.LOGGER.error("Failed to reload {}, keeping previous config until it changes again: {}",
+                    configFile.getFileName(), e.getMessage());
+        }
+    }
+}
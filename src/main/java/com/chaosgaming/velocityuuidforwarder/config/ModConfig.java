@@ -5,39 +5,75 @@ import com.moandjiezana.toml.TomlWriter;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Immutable snapshot of the mod config; a reload produces a new instance.
+ */
 public class ModConfig {
-    private static final String CONFIG_PATH = "config/velocity-uuid-forwarder.toml";
+    public static final String CONFIG_PATH = "config/velocity-uuid-forwarder.toml";
     
-    private String secret;
-    private boolean debug;
+    private final String secret;
+    private final List<String> additionalSecrets;
+    private final List<String> activeSecrets;
+    private final boolean debug;
+    private final long statsIntervalMinutes;
     
     public ModConfig() {
-        this.secret = "CHANGE_ME";
-        this.debug = false;
+        this("CHANGE_ME", List.of(), false, 10);
+    }
+    
+    private ModConfig(String secret, List<String> additionalSecrets, boolean debug, long statsIntervalMinutes) {
+        this.secret = secret;
+        this.additionalSecrets = List.copyOf(additionalSecrets);
+        
+        List<String> active = new ArrayList<>();
+        active.add(secret);
+        active.addAll(additionalSecrets);
+        active.removeIf("CHANGE_ME"::equals);
+        this.activeSecrets = active.stream().distinct().toList();
+        this.debug = debug;
+        this.statsIntervalMinutes = statsIntervalMinutes;
     }
     
     public static ModConfig load() {
         File configFile = new File(CONFIG_PATH);
-        ModConfig config = new ModConfig();
         
         if (!configFile.exists()) {
             // Create default config
+            ModConfig config = new ModConfig();
             config.save();
             return config;
         }
         
         try {
-            Toml toml = new Toml().read(configFile);
-            config.secret = toml.getString("secret", "CHANGE_ME");
-            config.debug = toml.getBoolean("debug", false);
+            return read(configFile);
         } catch (Exception e) {
             System.err.println("Failed to load config, using defaults: " + e.getMessage());
+            return new ModConfig();
         }
-        
-        return config;
+    }
+    
+    /**
+     * Parse the config file, throwing instead of falling back to defaults.
+     */
+    public static ModConfig read(File configFile) {
+        Toml toml = new Toml().read(configFile);
+        List<String> additionalSecrets = new ArrayList<>();
+        for (Object value : toml.getList("additional_secrets", List.of())) {
+            String trimmed = String.valueOf(value).trim();
+            if (!trimmed.isEmpty()) {
+                additionalSecrets.add(trimmed);
+            }
+        }
+        return new ModConfig(
+                toml.getString("secret", "CHANGE_ME"),
+                additionalSecrets,
+                toml.getBoolean("debug", false),
+                Math.max(0, toml.getLong("stats_interval_minutes", 10L)));
     }
     
     public void save() {
@@ -50,7 +86,9 @@ public class ModConfig {
         
         Map<String, Object> configMap = new HashMap<>();
         configMap.put("secret", secret);
+        configMap.put("additional_secrets", additionalSecrets);
         configMap.put("debug", debug);
+        configMap.put("stats_interval_minutes", statsIntervalMinutes);
         
         TomlWriter writer = new TomlWriter();
         try {
@@ -64,7 +102,29 @@ public class ModConfig {
         return secret;
     }
     
+    /**
+     * Older or upcoming secrets that are accepted alongside {@link #getSecret()} during a rotation.
+     */
+    public List<String> getAdditionalSecrets() {
+        return additionalSecrets;
+    }
+    
+    /**
+     * Every secret a forwarding signature may be made with, primary first.
+     * The unchanged default secret is never included.
+     */
+    public List<String> getActiveSecrets() {
+        return activeSecrets;
+    }
+    
     public boolean isDebug() {
         return debug;
     }
+    
+    /**
+     * Minutes between handshake statistics log dumps; 0 disables the periodic dump.
+     */
+    public long getStatsIntervalMinutes() {
+        return statsIntervalMinutes;
+    }
 }
@@ -1,9 +1,12 @@
 package com.chaosgaming.velocityuuidforwarder.mixin;
 
 import com.chaosgaming.velocityuuidforwarder.VelocityUUIDForwarder;
+import com.chaosgaming.velocityuuidforwarder.config.ModConfig;
+import com.chaosgaming.velocityuuidforwarder.stats.ForwardingStats;
+import com.chaosgaming.velocityuuidforwarder.util.ForwardingKeyRing;
+import com.chaosgaming.velocityuuidforwarder.util.UnsupportedForwardingVersionException;
 import com.chaosgaming.velocityuuidforwarder.util.VelocityMessageUtil;
 import com.mojang.authlib.GameProfile;
-import com.mojang.authlib.properties.Property;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import net.minecraft.network.packet.c2s.login.LoginQueryResponseC2SPacket;
@@ -14,8 +17,6 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-import java.util.UUID;
-
 @Mixin(ServerLoginNetworkHandler.class)
 public abstract class ServerLoginNetworkHandlerMixin {
     
@@ -32,50 +33,58 @@ public abstract class ServerLoginNetworkHandlerMixin {
     private void onVelocityForwardingResponse(LoginQueryResponseC2SPacket packet, CallbackInfo ci) {
         // Check if this is a Velocity forwarding response
         if (packet.response() != null) {
+            ForwardingStats stats = VelocityUUIDForwarder.getStats();
+            // One snapshot per handshake, so a concurrent reload can't mix old and new settings
+            ModConfig config = VelocityUUIDForwarder.getConfig();
             ByteBuf data = null;
             try {
+                long time = System.nanoTime();
                 data = Unpooled.wrappedBuffer(packet.response());
+                time = stats.recordStage(ForwardingStats.Stage.WRAP, time);
                 
                 // Read and verify the Velocity forwarding data
-                String secret = VelocityUUIDForwarder.getConfig().getSecret();
+                ForwardingKeyRing keyRing = ForwardingKeyRing.forSecrets(config.getActiveSecrets());
                 
-                // Check if secret is still default
-                if ("CHANGE_ME".equals(secret)) {
+                // Check if only the default secret is configured
+                if (keyRing.isEmpty()) {
+                    stats.recordOutcome(ForwardingStats.Outcome.UNCONFIGURED_SECRET);
                     VelocityUUIDForwarder.LOGGER.error("Rejecting connection from {} - Forwarding secret not configured!", getConnectionInfo());
                     ci.cancel();
                     return;
                 }
                 
-                VelocityMessageUtil.ForwardingData forwardingData = 
-                    VelocityMessageUtil.readForwardingData(data, secret);
-                
-                // Extract the real Mojang UUID and username
-                UUID realUuid = forwardingData.getUuid();
-                String username = forwardingData.getUsername();
+                VelocityMessageUtil.verifyForwardingData(data, keyRing);
+                time = stats.recordStage(ForwardingStats.Stage.VERIFY, time);
                 
-                // Create a new game profile with the correct UUID
-                GameProfile newProfile = new GameProfile(realUuid, username);
-                
-                // Copy properties (skin, cape, etc.)
-                for (Property property : forwardingData.getProperties()) {
-                    newProfile.getProperties().put(property.name(), property);
-                }
+                // Decodes the properties (skin, cape, etc.) straight into the new profile
+                VelocityMessageUtil.ForwardingData forwardingData = VelocityMessageUtil.parseForwardingData(data);
+                stats.recordStage(ForwardingStats.Stage.PARSE, time);
                 
                 // Replace the profile
-                this.profile = newProfile;
+                this.profile = forwardingData.getProfile();
+                stats.recordOutcome(ForwardingStats.Outcome.ACCEPTED);
                 
-                if (VelocityUUIDForwarder.getConfig().isDebug()) {
+                if (config.isDebug()) {
                     VelocityUUIDForwarder.LOGGER.info("Applied Velocity forwarding for player {} with UUID {}", 
-                        username, realUuid);
+                        forwardingData.getUsername(), forwardingData.getUuid());
                     VelocityUUIDForwarder.LOGGER.info("Original address: {}", forwardingData.getAddress());
+                    VelocityUUIDForwarder.LOGGER.info("Forwarding version: {}", forwardingData.getVersion());
                 }
             } catch (SecurityException e) {
+                stats.recordOutcome(ForwardingStats.Outcome.BAD_SIGNATURE);
                 VelocityUUIDForwarder.LOGGER.error("Rejecting connection from {} - Invalid signature: {}", 
                     getConnectionInfo(), e.getMessage());
                 ci.cancel();
+            } catch (UnsupportedForwardingVersionException e) {
+                stats.recordOutcome(ForwardingStats.Outcome.UNSUPPORTED_VERSION);
+                VelocityUUIDForwarder.LOGGER.error("Failed to process Velocity forwarding data from {}: {}", 
+                    getConnectionInfo(), e.getMessage());
+                ci.cancel();
             } catch (Exception e) {
+                stats.recordOutcome(ForwardingStats.Outcome.MALFORMED_PAYLOAD);
                 VelocityUUIDForwarder.LOGGER.error("Failed to process Velocity forwarding data from {}: {}", 
                     getConnectionInfo(), e.getMessage(), e);
+                ci.cancel();
             } finally {
                 if (data != null) {
                     data.release();
@@ -0,0 +1,99 @@
+package com.chaosgaming.velocityuuidforwarder.stats;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-stage timings and outcome counters for Velocity forwarding handshakes.
+ * Recording is a handful of uncontended {@link LongAdder} updates, cheap enough to leave on.
+ */
+public class ForwardingStats {
+    
+    public enum Stage {
+        WRAP,
+        VERIFY,
+        PARSE
+    }
+    
+    public enum Outcome {
+        ACCEPTED,
+        BAD_SIGNATURE,
+        UNCONFIGURED_SECRET,
+        UNSUPPORTED_VERSION,
+        MALFORMED_PAYLOAD
+    }
+    
+    private final Map<Stage, StageTimer> stages = new EnumMap<>(Stage.class);
+    private final Map<Outcome, LongAdder> outcomes = new EnumMap<>(Outcome.class);
+    
+    public ForwardingStats() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new StageTimer());
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new LongAdder());
+        }
+    }
+    
+    /**
+     * Record a stage that started at {@code startNanos} and return the current time,
+     * so consecutive stages can be chained without extra clock reads.
+     */
+    public long recordStage(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        stages.get(stage).record(now - startNanos);
+        return now;
+    }
+    
+    public void recordOutcome(Outcome outcome) {
+        outcomes.get(outcome).increment();
+    }
+    
+    public long getOutcomeCount(Outcome outcome) {
+        return outcomes.get(outcome).sum();
+    }
+    
+    public long getTotalHandshakes() {
+        long total = 0;
+        for (LongAdder adder : outcomes.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+    
+    public List<String> summaryLines() {
+        List<String> lines = new ArrayList<>();
+        StringBuilder outcomeLine = new StringBuilder("handshakes=").append(getTotalHandshakes());
+        for (Map.Entry<Outcome, LongAdder> entry : outcomes.entrySet()) {
+            outcomeLine.append(", ").append(entry.getKey().name().toLowerCase(Locale.ROOT))
+                    .append('=').append(entry.getValue().sum());
+        }
+        lines.add(outcomeLine.toString());
+        for (Map.Entry<Stage, StageTimer> entry : stages.entrySet()) {
+            StageTimer timer = entry.getValue();
+            long count = timer.count.sum();
+            lines.add(String.format(Locale.ROOT, "%s: n=%d avg=%.1fus max=%.1fus",
+                    entry.getKey().name().toLowerCase(Locale.ROOT), count,
+                    count == 0 ? 0.0 : timer.totalNanos.sum() / 1000.0 / count,
+                    timer.maxNanos.get() / 1000.0));
+        }
+        return lines;
+    }
+    
+    private static final class StageTimer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+    }
+}
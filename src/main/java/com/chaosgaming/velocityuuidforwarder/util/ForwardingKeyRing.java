@@ -0,0 +1,127 @@
+package com.chaosgaming.velocityuuidforwarder.util;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The set of forwarding secrets currently accepted, so the Velocity secret can be rotated
+ * one server at a time. Each key keeps its own pre-keyed {@link ForwardingSignatureVerifier}.
+ *
+ * <p>The key that matched last is tried first; while the network is not mid-rotation every
+ * handshake costs a single HMAC. Match counts per key show when an old secret is no longer
+ * used and can be removed.</p>
+ */
+public class ForwardingKeyRing {
+    private static volatile ForwardingKeyRing current;
+    
+    private final List<String> secrets;
+    private final Key[] keys;
+    private volatile int preferred;
+    
+    private ForwardingKeyRing(List<String> secrets, ForwardingKeyRing previous) {
+        this.secrets = List.copyOf(secrets);
+        this.keys = new Key[this.secrets.size()];
+        for (int i = 0; i < keys.length; i++) {
+            String secret = this.secrets.get(i);
+            Key reused = previous != null ? previous.find(secret) : null;
+            // Keep verifiers and counters for secrets that survive a config reload
+            keys[i] = reused != null ? reused : new Key(secret);
+        }
+    }
+    
+    /**
+     * Get the key ring for the given secrets, reusing the previous one unless the list changed.
+     */
+    public static ForwardingKeyRing forSecrets(List<String> secrets) {
+        ForwardingKeyRing ring = current;
+        if (ring == null || !ring.secrets.equals(secrets)) {
+            ring = new ForwardingKeyRing(secrets, ring);
+            current = ring;
+        }
+        return ring;
+    }
+    
+    private Key find(String secret) {
+        for (Key key : keys) {
+            if (key.secret.equals(secret)) {
+                return key;
+            }
+        }
+        return null;
+    }
+    
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+    
+    /**
+     * Verify the signature stored at {@code signatureIndex} against every active key,
+     * starting with the one that matched last.
+     *
+     * @return {@code true} if any key produced the signature
+     */
+    public boolean verify(ByteBuf buf, int signatureIndex, int dataIndex, int dataLength) {
+        Key[] keys = this.keys;
+        int first = preferred;
+        if (first < keys.length && keys[first].verify(buf, signatureIndex, dataIndex, dataLength)) {
+            return true;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (i != first && keys[i].verify(buf, signatureIndex, dataIndex, dataLength)) {
+                preferred = i;
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public List<String> summaryLines() {
+        List<String> lines = new ArrayList<>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            lines.add(String.format(Locale.ROOT, "key %d (%s): matches=%d%s", i + 1, keys[i].fingerprint,
+                    keys[i].matches.sum(), i == preferred ? " [preferred]" : ""));
+        }
+        return lines;
+    }
+    
+    private static final class Key {
+        private final String secret;
+        private final String fingerprint;
+        private final ForwardingSignatureVerifier verifier;
+        private final LongAdder matches = new LongAdder();
+        
+        private Key(String secret) {
+            this.secret = secret;
+            this.fingerprint = fingerprint(secret);
+            this.verifier = new ForwardingSignatureVerifier(secret);
+        }
+        
+        private boolean verify(ByteBuf buf, int signatureIndex, int dataIndex, int dataLength) {
+            if (verifier.verify(buf, signatureIndex, dataIndex, dataLength)) {
+                matches.increment();
+                return true;
+            }
+            return false;
+        }
+        
+        /**
+         * Short, non-reversible label for logs and the stats command; the secret itself is never shown.
+         */
+        private static String fingerprint(String secret) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(digest, 0, 4);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.chaosgaming.velocityuuidforwarder.util;
+
+import io.netty.buffer.ByteBuf;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Verifies HMAC-SHA256 forwarding signatures for one secret.
+ * Each thread gets its own pre-initialized {@link Mac}, cloned from a template
+ * whose key pads were derived once, so a verification is a single reset + update + final.
+ * Instances are held by {@link ForwardingKeyRing}, one per accepted secret.
+ */
+public class ForwardingSignatureVerifier {
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    public static final int SIGNATURE_LENGTH = 32;
+    
+    private final String secret;
+    private final Mac template;
+    private final ThreadLocal<Mac> macs;
+    private final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[SIGNATURE_LENGTH]);
+    
+    public ForwardingSignatureVerifier(String secret) {
+        this.secret = secret;
+        try {
+            this.template = Mac.getInstance(HMAC_SHA256);
+            this.template.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialize HMAC", e);
+        }
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+    
+    private Mac newMac() {
+        try {
+            return (Mac) template.clone();
+        } catch (CloneNotSupportedException e) {
+            // Provider without clone support: pay for a fresh key schedule once per thread
+            try {
+                Mac mac = Mac.getInstance(HMAC_SHA256);
+                mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256));
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("Failed to initialize HMAC", ex);
+            }
+        }
+    }
+    
+    /**
+     * Verify the signature stored at {@code signatureIndex} against {@code dataLength}
+     * bytes starting at {@code dataIndex}, without copying either.
+     */
+    public boolean verify(ByteBuf buf, int signatureIndex, int dataIndex, int dataLength) {
+        Mac mac = macs.get();
+        byte[] computed = scratch.get();
+        try {
+            mac.update(buf.nioBuffer(dataIndex, dataLength));
+            mac.doFinal(computed, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException("Failed to verify signature", e);
+        } finally {
+            // Leave the Mac clean even if the update failed halfway
+            mac.reset();
+        }
+        
+        // Constant-time comparison against the signature bytes in the buffer
+        int diff = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            diff |= computed[i] ^ buf.getByte(signatureIndex + i);
+        }
+        return diff == 0;
+    }
+}
@@ -0,0 +1,62 @@
+package com.chaosgaming.velocityuuidforwarder.util;
+
+/**
+ * Velocity modern forwarding versions and the optional sections each one appends
+ * after the properties. The proxy answers with the highest version it supports that
+ * does not exceed the one requested by the backend.
+ */
+public enum ForwardingVersion {
+    /** Address, UUID, username and properties */
+    DEFAULT(1, false, false),
+    /** Adds the player's chat-signing public key (1.19) */
+    WITH_KEY(2, true, false),
+    /** Adds the UUID the key was issued to, which may differ from the forwarded UUID (1.19.1) */
+    WITH_KEY_V2(3, true, true),
+    /** Chat session keys are sent by the client later, so the payload is back to the default layout (1.19.3+) */
+    LAZY_SESSION(4, false, false);
+    
+    /** Highest version this mod can parse; this is what the forwarding request advertises */
+    public static final ForwardingVersion MAX_SUPPORTED = LAZY_SESSION;
+    
+    private static final ForwardingVersion[] BY_ID = new ForwardingVersion[MAX_SUPPORTED.id + 1];
+    
+    static {
+        for (ForwardingVersion version : values()) {
+            BY_ID[version.id] = version;
+        }
+    }
+    
+    private final int id;
+    private final boolean playerKey;
+    private final boolean keySigner;
+    
+    ForwardingVersion(int id, boolean playerKey, boolean keySigner) {
+        this.id = id;
+        this.playerKey = playerKey;
+        this.keySigner = keySigner;
+    }
+    
+    /**
+     * Look up a version by the number on the wire.
+     *
+     * @throws UnsupportedForwardingVersionException if this mod cannot parse it
+     */
+    public static ForwardingVersion fromId(int id) {
+        if (id <= 0 || id >= BY_ID.length || BY_ID[id] == null) {
+            throw new UnsupportedForwardingVersionException(id);
+        }
+        return BY_ID[id];
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    public boolean hasPlayerKey() {
+        return playerKey;
+    }
+    
+    public boolean hasKeySigner() {
+        return keySigner;
+    }
+}
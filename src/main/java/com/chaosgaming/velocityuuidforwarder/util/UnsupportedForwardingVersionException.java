@@ -0,0 +1,19 @@
+package com.chaosgaming.velocityuuidforwarder.util;
+
+/**
+ * Thrown when the proxy sends a modern forwarding version this mod cannot read.
+ */
+public class UnsupportedForwardingVersionException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+    
+    private final int version;
+    
+    public UnsupportedForwardingVersionException(int version) {
+        super("Unsupported forwarding version: " + version);
+        this.version = version;
+    }
+    
+    public int getVersion() {
+        return version;
+    }
+}
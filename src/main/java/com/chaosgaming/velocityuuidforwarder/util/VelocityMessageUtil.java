@@ -1,33 +1,31 @@
 package com.chaosgaming.velocityuuidforwarder.util;
 
+import com.mojang.authlib.GameProfile;
 import com.mojang.authlib.properties.Property;
+import com.mojang.authlib.properties.PropertyMap;
 import io.netty.buffer.ByteBuf;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.UUID;
 
 public class VelocityMessageUtil {
-    private static final int MODERN_FORWARDING_VERSION = 1;
-    private static final String HMAC_SHA256 = "HmacSHA256";
-    
+    /**
+     * Decoded forwarding payload. The profile is built while parsing, with each property
+     * decoded straight into its property map.
+     */
     public static class ForwardingData {
+        private final ForwardingVersion version;
         private final String address;
-        private final UUID uuid;
-        private final String username;
-        private final List<Property> properties;
+        private final GameProfile profile;
         
-        public ForwardingData(String address, UUID uuid, String username, List<Property> properties) {
+        private ForwardingData(ForwardingVersion version, String address, GameProfile profile) {
+            this.version = version;
             this.address = address;
-            this.uuid = uuid;
-            this.username = username;
-            this.properties = properties;
+            this.profile = profile;
+        }
+        
+        public ForwardingVersion getVersion() {
+            return version;
         }
         
         public String getAddress() {
@@ -35,34 +33,61 @@ public class VelocityMessageUtil {
         }
         
         public UUID getUuid() {
-            return uuid;
+            return profile.getId();
         }
         
         public String getUsername() {
-            return username;
+            return profile.getName();
         }
         
-        public List<Property> getProperties() {
-            return properties;
+        /**
+         * Game profile with the forwarded UUID, name and properties (skin, cape, etc.)
+         */
+        public GameProfile getProfile() {
+            return profile;
         }
     }
     
     /**
-     * Read and verify Velocity's modern forwarding data
+     * Read and verify Velocity's modern forwarding data, accepting a signature from any key in the ring.
+     * The signature is checked in place against the remaining bytes of the buffer
+     * before anything is decoded.
      */
-    public static ForwardingData readForwardingData(ByteBuf data, String secret) throws Exception {
-        // Read the signature first
-        byte[] signature = new byte[32]; // HMAC-SHA256 produces 32 bytes
-        data.readBytes(signature);
-        
-        // Read the rest of the data for verification
-        int dataStartIndex = data.readerIndex();
-        
-        // Read version
-        int version = data.readByte() & 0xFF;
-        if (version != MODERN_FORWARDING_VERSION) {
-            throw new IllegalStateException("Unsupported forwarding version: " + version);
+    public static ForwardingData readForwardingData(ByteBuf data, ForwardingKeyRing keyRing) {
+        verifyForwardingData(data, keyRing);
+        return parseForwardingData(data);
+    }
+    
+    /**
+     * Check the signature in front of the forwarding payload against every key in the ring and
+     * advance the reader index past it. Throws {@link SecurityException} if no key matches.
+     */
+    public static void verifyForwardingData(ByteBuf data, ForwardingKeyRing keyRing) {
+        // HMAC-SHA256 signature followed by the signed payload
+        int signatureIndex = data.readerIndex();
+        int dataStartIndex = signatureIndex + ForwardingSignatureVerifier.SIGNATURE_LENGTH;
+        if (!keyRing.verify(data, signatureIndex, dataStartIndex, signedLength(data))) {
+            throw new SecurityException("Invalid forwarding signature!");
         }
+        data.readerIndex(dataStartIndex);
+    }
+    
+    private static int signedLength(ByteBuf data) {
+        int dataLength = data.readableBytes() - ForwardingSignatureVerifier.SIGNATURE_LENGTH;
+        if (dataLength <= 0) {
+            throw new IllegalStateException("Forwarding data too short: " + data.readableBytes() + " bytes");
+        }
+        return dataLength;
+    }
+    
+    /**
+     * Decode a forwarding payload whose signature was already checked by
+     * {@link #verifyForwardingData}. The layout after the properties depends on the
+     * version byte; see {@link ForwardingVersion}.
+     */
+    public static ForwardingData parseForwardingData(ByteBuf data) {
+        // Read version (a VarInt, one byte for every version that exists)
+        ForwardingVersion version = ForwardingVersion.fromId(readVarInt(data));
         
         // Read address
         String address = readString(data);
@@ -73,45 +98,58 @@ public class VelocityMessageUtil {
         // Read username
         String username = readString(data);
         
-        // Read properties
-        List<Property> properties = readProperties(data);
-        
-        // Now verify the signature
-        int dataLength = data.readerIndex() - dataStartIndex;
-        data.readerIndex(dataStartIndex);
-        byte[] dataBytes = new byte[dataLength];
-        data.readBytes(dataBytes);
+        // Read properties straight into the profile
+        GameProfile profile = new GameProfile(uuid, username);
+        readProperties(data, profile.getProperties());
         
-        if (!verifySignature(dataBytes, signature, secret)) {
-            throw new SecurityException("Invalid forwarding signature!");
+        // Skip the chat key and the UUID it was issued to (versions 2 and 3); the server
+        // does not use them, so they are only checked to fit the payload
+        if (version.hasPlayerKey()) {
+            skipPlayerKey(data);
+            if (version.hasKeySigner() && data.readBoolean()) {
+                data.skipBytes(2 * Long.BYTES);
+            }
         }
         
-        return new ForwardingData(address, uuid, username, properties);
+        return new ForwardingData(version, address, profile);
     }
     
     /**
-     * Verify HMAC-SHA256 signature
+     * Payload for the {@code velocity:player_info} login query: the highest forwarding
+     * version this mod understands. The proxy never answers with a newer one.
      */
-    private static boolean verifySignature(byte[] data, byte[] signature, String secret) {
-        try {
-            Mac mac = Mac.getInstance(HMAC_SHA256);
-            SecretKeySpec keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256);
-            mac.init(keySpec);
-            byte[] computed = mac.doFinal(data);
-            return MessageDigest.isEqual(computed, signature);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            throw new RuntimeException("Failed to verify signature", e);
-        }
+    public static void writeForwardingRequest(ByteBuf buf) {
+        buf.writeByte(ForwardingVersion.MAX_SUPPORTED.getId());
     }
     
     /**
-     * Read a string from the ByteBuf (VarInt length + UTF-8 bytes)
+     * Read a string from the ByteBuf (VarInt length + UTF-8 bytes), decoding directly from the buffer
      */
     private static String readString(ByteBuf buf) {
+        int length = readLength(buf);
+        String value = length == 0 ? "" : buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return value;
+    }
+    
+    /**
+     * Skip a player key: expiry, then public key and signature as VarInt-prefixed byte arrays
+     */
+    private static void skipPlayerKey(ByteBuf buf) {
+        buf.skipBytes(Long.BYTES);
+        buf.skipBytes(readLength(buf));
+        buf.skipBytes(readLength(buf));
+    }
+    
+    /**
+     * Read a VarInt length prefix and check it fits the remaining bytes
+     */
+    private static int readLength(ByteBuf buf) {
         int length = readVarInt(buf);
-        byte[] bytes = new byte[length];
-        buf.readBytes(bytes);
-        return new String(bytes, StandardCharsets.UTF_8);
+        if (length < 0 || length > buf.readableBytes()) {
+            throw new IllegalStateException("Length " + length + " exceeds remaining " + buf.readableBytes() + " bytes");
+        }
+        return length;
     }
     
     /**
@@ -124,25 +162,21 @@ public class VelocityMessageUtil {
     }
     
     /**
-     * Read game profile properties
+     * Read game profile properties into {@code properties}
      */
-    private static List<Property> readProperties(ByteBuf buf) {
+    private static void readProperties(ByteBuf buf, PropertyMap properties) {
         int count = readVarInt(buf);
-        List<Property> properties = new ArrayList<>(count);
+        if (count < 0) {
+            throw new IllegalStateException("Negative property count: " + count);
+        }
         
         for (int i = 0; i < count; i++) {
             String name = readString(buf);
             String value = readString(buf);
             String signature = readString(buf);
             
-            if (signature.isEmpty()) {
-                properties.add(new Property(name, value));
-            } else {
-                properties.add(new Property(name, value, signature));
-            }
+            properties.put(name, signature.isEmpty() ? new Property(name, value) : new Property(name, value, signature));
         }
-        
-        return properties;
     }
     
     /**
@@ -0,0 +1,4 @@
+package com.velocitypowered.api.command;
+
+public interface Command {
+}
@@ -0,0 +1,7 @@
+package com.velocitypowered.api.command;
+
+import net.kyori.adventure.audience.Audience;
+
+public interface CommandSource extends Audience {
+    boolean hasPermission(String permission);
+}
@@ -0,0 +1,23 @@
+package com.velocitypowered.api.command;
+
+import java.util.List;
+
+public interface SimpleCommand extends Command {
+    void execute(Invocation invocation);
+
+    default List<String> suggest(Invocation invocation) {
+        return List.of();
+    }
+
+    default boolean hasPermission(Invocation invocation) {
+        return true;
+    }
+
+    interface Invocation {
+        CommandSource source();
+
+        String alias();
+
+        String[] arguments();
+    }
+}
@@ -0,0 +1,50 @@
+package com.velocitypowered.api.event;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+public abstract class EventTask {
+
+    public abstract boolean requiresAsync();
+
+    public abstract void execute(Continuation continuation);
+
+    public static EventTask async(Runnable task) {
+        return new EventTask() {
+            @Override
+            public boolean requiresAsync() {
+                return true;
+            }
+
+            @Override
+            public void execute(Continuation continuation) {
+                task.run();
+                continuation.resume();
+            }
+        };
+    }
+
+    public static EventTask withContinuation(Consumer<Continuation> task) {
+        return new EventTask() {
+            @Override
+            public boolean requiresAsync() {
+                return false;
+            }
+
+            @Override
+            public void execute(Continuation continuation) {
+                task.accept(continuation);
+            }
+        };
+    }
+
+    public static EventTask resumeWhenComplete(CompletableFuture<?> future) {
+        return withContinuation(continuation -> future.whenComplete((result, cause) -> {
+            if (cause != null) {
+                continuation.resumeWithException(cause);
+            } else {
+                continuation.resume();
+            }
+        }));
+    }
+}
@@ -1,4 +1,10 @@
 package com.velocitypowered.api.proxy;
 
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.scheduler.Scheduler;
+
 public interface ProxyServer {
+    CommandManager getCommandManager();
+
+    Scheduler getScheduler();
 }
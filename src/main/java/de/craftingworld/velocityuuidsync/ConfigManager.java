@@ -1,25 +1,61 @@
 package de.craftingworld.velocityuuidsync;
 
+import de.craftingworld.velocityuuidsync.storage.SqliteOptions;
+import de.craftingworld.velocityuuidsync.storage.StorageEngine;
+
+import org.slf4j.Logger;
+
 import java.io.*;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 
 public class ConfigManager {
 
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+    public static final double DEFAULT_BLOOM_FILTER_FPP = 0.01;
+    public static final int DEFAULT_STORAGE_THREADS = 4;
+    public static final int DEFAULT_LOOKUP_TIMEOUT_MS = 500;
+    public static final int DEFAULT_MAX_INFLIGHT_LOOKUPS = 64;
+    public static final int DEFAULT_METRICS_EXPORT_INTERVAL_SECONDS = 30;
+    public static final int DEFAULT_WRITE_QUEUE_CAPACITY = 10000;
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 256;
+    public static final int DEFAULT_WRITE_FLUSH_INTERVAL_MS = 50;
+    public static final int DEFAULT_SQLITE_READ_CONNECTIONS = 4;
+    public static final String DEFAULT_SQLITE_SYNCHRONOUS = "NORMAL";
+    public static final int DEFAULT_SQLITE_MMAP_SIZE_MB = 256;
+    public static final int DEFAULT_SQLITE_SHARDS = 1;
+    public static final int DEFAULT_WARMUP_THREADS = 2;
+    public static final int DEFAULT_LAST_UPDATED_GRANULARITY_MINUTES = 60;
+    public static final int DEFAULT_REPLICATION_POLL_INTERVAL_MS = 1000;
+    public static final int DEFAULT_SNAPSHOT_INTERVAL_MINUTES = 0;
+
+    private static final long RELOAD_SETTLE_MS = 100;
+    private static final int MAX_SETTLE_CHECKS = 20;
+
     private final Path dataDirectory;
     private final Path configFile;
-    private Properties properties;
-    private List<String> offlineModeServers;
-    private boolean debugEnabled;
+    private volatile Settings settings;
+    private WatchService watchService;
+    private Thread watchThread;
 
     public ConfigManager(Path dataDirectory) {
         this.dataDirectory = dataDirectory;
         this.configFile = dataDirectory.resolve("config.properties");
-        this.properties = new Properties();
-        this.offlineModeServers = new ArrayList<>();
     }
 
     public void loadConfig() throws IOException {
@@ -34,43 +70,475 @@ public class ConfigManager {
         }
 
         // Load config
+        Properties properties = new Properties();
         try (InputStream input = Files.newInputStream(configFile)) {
             properties.load(input);
         }
 
-        // Parse settings
-        String serversConfig = properties.getProperty("offline-mode-servers", "create");
-        for (String server : serversConfig.split(",")) {
-            String trimmed = server.trim();
-            if (!trimmed.isEmpty()) {
-                offlineModeServers.add(trimmed.toLowerCase());
+        // Parse into a fresh snapshot and publish it in one step
+        settings = new Settings(properties);
+    }
+
+    /**
+     * Read config.properties once it has stopped changing. Properties accept any prefix of a
+     * valid file, so a half-written file would not fail to parse; it would silently drop keys.
+     */
+    private Settings readSettledSettings() throws IOException, InterruptedException {
+        byte[] content = Files.readAllBytes(configFile);
+        for (int check = 0; check < MAX_SETTLE_CHECKS; check++) {
+            Thread.sleep(RELOAD_SETTLE_MS);
+            byte[] again = Files.readAllBytes(configFile);
+            if (Arrays.equals(content, again)) {
+                break;
+            }
+            content = again;
+        }
+        Properties properties = new Properties();
+        properties.load(new ByteArrayInputStream(content));
+        return new Settings(properties);
+    }
+
+    /**
+     * Watch config.properties and reload it whenever it changes. A file that fails to
+     * load leaves the previous settings in place.
+     *
+     * @param onReload called with the new settings after each successful reload
+     */
+    public void startWatching(Logger logger, Consumer<Settings> onReload) throws IOException {
+        watchService = dataDirectory.getFileSystem().newWatchService();
+        // Editors often replace the file instead of writing it in place, so watch creates too
+        dataDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchThread = new Thread(() -> watchLoop(logger, onReload), "velocity-uuid-sync-config-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    public void stopWatching() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+    }
+
+    private void watchLoop(Logger logger, Consumer<Settings> onReload) {
+        Path fileName = configFile.getFileName();
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (fileName.equals(event.context())) {
+                    changed = true;
+                }
+            }
+            if (!key.reset()) {
+                logger.warn("Config directory {} is no longer accessible, hot reload stopped", dataDirectory);
+                return;
+            }
+            if (!changed) {
+                continue;
+            }
+
+            // Events that arrive while reloading are kept, so a save that is still in progress
+            // gets another reload; reloading an unchanged file is harmless
+            try {
+                Settings previous = settings;
+                Settings reloaded = readSettledSettings();
+                settings = reloaded;
+                logger.info("Reloaded {}", configFile.getFileName());
+                List<String> restartKeys = reloaded.restartRequiredChanges(previous);
+                if (!restartKeys.isEmpty()) {
+                    logger.warn("Changes to {} take effect after a proxy restart", restartKeys);
+                }
+                onReload.accept(reloaded);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (NoSuchFileException e) {
+                // Replaced by delete and create; the create event reloads it
+            } catch (Exception e) {
+                logger.error("Failed to reload {}, keeping previous settings until it changes again: {}",
+                        configFile.getFileName(), e.getMessage());
             }
         }
+    }
+
+    private static double parseDouble(Properties properties, String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
 
-        debugEnabled = Boolean.parseBoolean(properties.getProperty("debug", "false"));
+    private static int parseInt(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
     }
 
     private void createDefaultConfig() throws IOException {
         Properties defaultProps = new Properties();
         defaultProps.setProperty("offline-mode-servers", "create");
         defaultProps.setProperty("debug", "false");
+        defaultProps.setProperty("storage-engine", "sqlite");
+        defaultProps.setProperty("cache-size", String.valueOf(DEFAULT_CACHE_SIZE));
+        defaultProps.setProperty("cache-eviction-policy", "lru");
+        defaultProps.setProperty("bloom-filter-fpp", String.valueOf(DEFAULT_BLOOM_FILTER_FPP));
+        defaultProps.setProperty("storage-threads", String.valueOf(DEFAULT_STORAGE_THREADS));
+        defaultProps.setProperty("lookup-timeout-ms", String.valueOf(DEFAULT_LOOKUP_TIMEOUT_MS));
+        defaultProps.setProperty("max-inflight-lookups", String.valueOf(DEFAULT_MAX_INFLIGHT_LOOKUPS));
+        defaultProps.setProperty("metrics-export-interval-seconds", String.valueOf(DEFAULT_METRICS_EXPORT_INTERVAL_SECONDS));
+        defaultProps.setProperty("write-queue-capacity", String.valueOf(DEFAULT_WRITE_QUEUE_CAPACITY));
+        defaultProps.setProperty("write-batch-size", String.valueOf(DEFAULT_WRITE_BATCH_SIZE));
+        defaultProps.setProperty("write-flush-interval-ms", String.valueOf(DEFAULT_WRITE_FLUSH_INTERVAL_MS));
+        defaultProps.setProperty("sqlite-read-connections", String.valueOf(DEFAULT_SQLITE_READ_CONNECTIONS));
+        defaultProps.setProperty("sqlite-synchronous", DEFAULT_SQLITE_SYNCHRONOUS);
+        defaultProps.setProperty("sqlite-mmap-size-mb", String.valueOf(DEFAULT_SQLITE_MMAP_SIZE_MB));
+        defaultProps.setProperty("sqlite-shards", String.valueOf(DEFAULT_SQLITE_SHARDS));
+        defaultProps.setProperty("warmup-enabled", "false");
+        defaultProps.setProperty("warmup-threads", String.valueOf(DEFAULT_WARMUP_THREADS));
+        defaultProps.setProperty("last-updated-granularity-minutes", String.valueOf(DEFAULT_LAST_UPDATED_GRANULARITY_MINUTES));
+        defaultProps.setProperty("replication-directory", "");
+        defaultProps.setProperty("replication-proxy-id", "");
+        defaultProps.setProperty("replication-poll-interval-ms", String.valueOf(DEFAULT_REPLICATION_POLL_INTERVAL_MS));
+        defaultProps.setProperty("snapshot-interval-minutes", String.valueOf(DEFAULT_SNAPSHOT_INTERVAL_MINUTES));
 
         try (OutputStream output = Files.newOutputStream(configFile)) {
             defaultProps.store(output, "Velocity UUID Sync Configuration\n" +
                     "offline-mode-servers: Comma-separated list of server names that run in offline-mode\n" +
-                    "debug: Enable debug logging (true/false)");
+                    "debug: Enable debug logging (true/false)\n" +
+                    "storage-engine: Storage backend for UUID mappings (sqlite, memory, log, mmap)\n" +
+                    "cache-size: Maximum number of username -> UUID mappings kept in memory (0 disables the cache)\n" +
+                    "cache-eviction-policy: Which cached mapping makes room for a new one (lru, tinylfu)\n" +
+                    "bloom-filter-fpp: False-positive rate of the known-username filter that skips storage for new players (0 disables it)\n" +
+                    "storage-threads: Number of threads that run storage lookups off the event thread\n" +
+                    "lookup-timeout-ms: Deadline for a storage lookup before the default profile is used (0 disables it)\n" +
+                    "max-inflight-lookups: Storage lookups allowed at once; further logins use the default profile\n" +
+                    "metrics-export-interval-seconds: How often metrics.prom is written to the data directory (0 disables it)\n" +
+                    "write-queue-capacity: Maximum number of mappings waiting to be written\n" +
+                    "write-batch-size: Maximum number of mappings committed in one transaction\n" +
+                    "write-flush-interval-ms: Maximum time a mapping waits before its batch is committed\n" +
+                    "sqlite-read-connections: Read-only SQLite connections shared by concurrent lookups\n" +
+                    "sqlite-synchronous: SQLite synchronous mode for writes (OFF, NORMAL, FULL, EXTRA)\n" +
+                    "sqlite-mmap-size-mb: Size of the memory-mapped region SQLite reads the database through (0 disables it)\n" +
+                    "sqlite-shards: Number of database files mappings are spread over for parallel writes (change it with ShardMigrator)\n" +
+                    "warmup-enabled: Load every stored mapping into a compact in-memory index at startup (true/false)\n" +
+                    "warmup-threads: Threads that read storage in parallel during the warm-up\n" +
+                    "last-updated-granularity-minutes: Logins with an unchanged UUID skip the write; their last-updated time is refreshed in one batch this often (0 writes every login)\n" +
+                    "replication-directory: Shared directory through which proxies exchange mappings (empty disables replication)\n" +
+                    "replication-proxy-id: Unique name of this proxy's change log (empty generates one)\n" +
+                    "replication-poll-interval-ms: How often the other proxies' change logs are checked for new mappings\n" +
+                    "snapshot-interval-minutes: How often all mappings are written to a snapshot that the next start restores from (0 disables snapshots, including the one on shutdown; sqlite only)\n" +
+                    "Changes are picked up without a restart, except for the storage, sqlite, cache, thread, queue, metrics, warmup, last-updated, replication and snapshot settings");
         }
     }
 
+    /**
+     * The current settings. Hot paths should read this once and use the snapshot,
+     * which never changes after it is published.
+     */
+    public Settings getSettings() {
+        return settings;
+    }
+
     public List<String> getOfflineModeServers() {
-        return new ArrayList<>(offlineModeServers);
+        return settings.getOfflineModeServers();
     }
 
     public boolean isOfflineModeServer(String serverName) {
-        return offlineModeServers.contains(serverName.toLowerCase());
+        return settings.isOfflineModeServer(serverName);
     }
 
     public boolean isDebugEnabled() {
-        return debugEnabled;
+        return settings.isDebugEnabled();
+    }
+
+    public StorageEngine getStorageEngine() {
+        return settings.getStorageEngine();
+    }
+
+    public int getCacheSize() {
+        return settings.getCacheSize();
+    }
+
+    public UuidCache.EvictionPolicy getCacheEvictionPolicy() {
+        return settings.getCacheEvictionPolicy();
+    }
+
+    public double getBloomFilterFpp() {
+        return settings.getBloomFilterFpp();
+    }
+
+    public int getStorageThreads() {
+        return settings.getStorageThreads();
+    }
+
+    public int getLookupTimeoutMs() {
+        return settings.getLookupTimeoutMs();
+    }
+
+    public int getMaxInflightLookups() {
+        return settings.getMaxInflightLookups();
+    }
+
+    public int getMetricsExportIntervalSeconds() {
+        return settings.getMetricsExportIntervalSeconds();
+    }
+
+    public int getWriteQueueCapacity() {
+        return settings.getWriteQueueCapacity();
+    }
+
+    public int getWriteBatchSize() {
+        return settings.getWriteBatchSize();
+    }
+
+    public int getWriteFlushIntervalMs() {
+        return settings.getWriteFlushIntervalMs();
+    }
+
+    public SqliteOptions getSqliteOptions() {
+        return settings.getSqliteOptions();
+    }
+
+    public boolean isWarmupEnabled() {
+        return settings.isWarmupEnabled();
+    }
+
+    public int getWarmupThreads() {
+        return settings.getWarmupThreads();
+    }
+
+    public int getLastUpdatedGranularityMinutes() {
+        return settings.getLastUpdatedGranularityMinutes();
+    }
+
+    public String getReplicationDirectory() {
+        return settings.getReplicationDirectory();
+    }
+
+    public String getReplicationProxyId() {
+        return settings.getReplicationProxyId();
+    }
+
+    public int getReplicationPollIntervalMs() {
+        return settings.getReplicationPollIntervalMs();
+    }
+
+    public int getSnapshotIntervalMinutes() {
+        return settings.getSnapshotIntervalMinutes();
+    }
+
+    /**
+     * Immutable view of one version of config.properties.
+     */
+    public static final class Settings {
+        private final Set<String> offlineModeServers;
+        private final List<String> offlineModeServerList;
+        private final boolean debugEnabled;
+        private final StorageEngine storageEngine;
+        private final int cacheSize;
+        private final UuidCache.EvictionPolicy cacheEvictionPolicy;
+        private final double bloomFilterFpp;
+        private final int storageThreads;
+        private final int lookupTimeoutMs;
+        private final int maxInflightLookups;
+        private final int metricsExportIntervalSeconds;
+        private final int writeQueueCapacity;
+        private final int writeBatchSize;
+        private final int writeFlushIntervalMs;
+        private final SqliteOptions sqliteOptions;
+        private final boolean warmupEnabled;
+        private final int warmupThreads;
+        private final int lastUpdatedGranularityMinutes;
+        private final String replicationDirectory;
+        private final String replicationProxyId;
+        private final int replicationPollIntervalMs;
+        private final int snapshotIntervalMinutes;
+
+        private Settings(Properties properties) {
+            List<String> servers = new ArrayList<>();
+            String serversConfig = properties.getProperty("offline-mode-servers", "create");
+            for (String server : serversConfig.split(",")) {
+                String trimmed = server.trim();
+                if (!trimmed.isEmpty()) {
+                    servers.add(trimmed.toLowerCase(Locale.ROOT));
+                }
+            }
+            this.offlineModeServerList = List.copyOf(servers);
+            // Matched ignoring case without lowercasing the server name on every lookup
+            TreeSet<String> serverSet = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            serverSet.addAll(servers);
+            this.offlineModeServers = Collections.unmodifiableSet(serverSet);
+
+            this.debugEnabled = Boolean.parseBoolean(properties.getProperty("debug", "false"));
+            this.storageEngine = StorageEngine.fromName(properties.getProperty("storage-engine", "sqlite"));
+            this.cacheSize = parseInt(properties, "cache-size", DEFAULT_CACHE_SIZE);
+            this.cacheEvictionPolicy = UuidCache.EvictionPolicy.fromName(properties.getProperty("cache-eviction-policy", "lru"));
+            this.bloomFilterFpp = parseDouble(properties, "bloom-filter-fpp", DEFAULT_BLOOM_FILTER_FPP);
+            this.storageThreads = Math.max(1, parseInt(properties, "storage-threads", DEFAULT_STORAGE_THREADS));
+            this.lookupTimeoutMs = parseInt(properties, "lookup-timeout-ms", DEFAULT_LOOKUP_TIMEOUT_MS);
+            this.maxInflightLookups = Math.max(1, parseInt(properties, "max-inflight-lookups", DEFAULT_MAX_INFLIGHT_LOOKUPS));
+            this.metricsExportIntervalSeconds = parseInt(properties, "metrics-export-interval-seconds", DEFAULT_METRICS_EXPORT_INTERVAL_SECONDS);
+            this.writeQueueCapacity = parseInt(properties, "write-queue-capacity", DEFAULT_WRITE_QUEUE_CAPACITY);
+            this.writeBatchSize = parseInt(properties, "write-batch-size", DEFAULT_WRITE_BATCH_SIZE);
+            this.writeFlushIntervalMs = parseInt(properties, "write-flush-interval-ms", DEFAULT_WRITE_FLUSH_INTERVAL_MS);
+            this.sqliteOptions = new SqliteOptions(
+                    parseInt(properties, "sqlite-read-connections", DEFAULT_SQLITE_READ_CONNECTIONS),
+                    properties.getProperty("sqlite-synchronous", DEFAULT_SQLITE_SYNCHRONOUS),
+                    parseInt(properties, "sqlite-mmap-size-mb", DEFAULT_SQLITE_MMAP_SIZE_MB) * 1024L * 1024L,
+                    parseInt(properties, "sqlite-shards", DEFAULT_SQLITE_SHARDS));
+            this.warmupEnabled = Boolean.parseBoolean(properties.getProperty("warmup-enabled", "false"));
+            this.warmupThreads = Math.max(1, parseInt(properties, "warmup-threads", DEFAULT_WARMUP_THREADS));
+            this.lastUpdatedGranularityMinutes = Math.max(0, parseInt(properties, "last-updated-granularity-minutes",
+                    DEFAULT_LAST_UPDATED_GRANULARITY_MINUTES));
+            this.replicationDirectory = properties.getProperty("replication-directory", "").trim();
+            this.replicationProxyId = properties.getProperty("replication-proxy-id", "").trim();
+            this.replicationPollIntervalMs = parseInt(properties, "replication-poll-interval-ms", DEFAULT_REPLICATION_POLL_INTERVAL_MS);
+            this.snapshotIntervalMinutes = Math.max(0, parseInt(properties, "snapshot-interval-minutes", DEFAULT_SNAPSHOT_INTERVAL_MINUTES));
+        }
+
+        /**
+         * Keys that differ from {@code previous} but are only read while the plugin starts.
+         */
+        List<String> restartRequiredChanges(Settings previous) {
+            List<String> keys = new ArrayList<>();
+            if (previous == null) {
+                return keys;
+            }
+            addIfChanged(keys, "storage-engine", storageEngine != previous.storageEngine);
+            addIfChanged(keys, "cache-size", cacheSize != previous.cacheSize);
+            addIfChanged(keys, "cache-eviction-policy", cacheEvictionPolicy != previous.cacheEvictionPolicy);
+            addIfChanged(keys, "bloom-filter-fpp", bloomFilterFpp != previous.bloomFilterFpp);
+            addIfChanged(keys, "storage-threads", storageThreads != previous.storageThreads);
+            addIfChanged(keys, "max-inflight-lookups", maxInflightLookups != previous.maxInflightLookups);
+            addIfChanged(keys, "metrics-export-interval-seconds", metricsExportIntervalSeconds != previous.metricsExportIntervalSeconds);
+            addIfChanged(keys, "write-queue-capacity", writeQueueCapacity != previous.writeQueueCapacity);
+            addIfChanged(keys, "write-batch-size", writeBatchSize != previous.writeBatchSize);
+            addIfChanged(keys, "write-flush-interval-ms", writeFlushIntervalMs != previous.writeFlushIntervalMs);
+            addIfChanged(keys, "sqlite-*", !sqliteOptions.equals(previous.sqliteOptions));
+            addIfChanged(keys, "warmup-enabled", warmupEnabled != previous.warmupEnabled);
+            addIfChanged(keys, "warmup-threads", warmupThreads != previous.warmupThreads);
+            addIfChanged(keys, "last-updated-granularity-minutes", lastUpdatedGranularityMinutes != previous.lastUpdatedGranularityMinutes);
+            addIfChanged(keys, "replication-*", !replicationDirectory.equals(previous.replicationDirectory)
+                    || !replicationProxyId.equals(previous.replicationProxyId)
+                    || replicationPollIntervalMs != previous.replicationPollIntervalMs);
+            addIfChanged(keys, "snapshot-interval-minutes", snapshotIntervalMinutes != previous.snapshotIntervalMinutes);
+            return keys;
+        }
+
+        private static void addIfChanged(List<String> keys, String key, boolean changed) {
+            if (changed) {
+                keys.add(key);
+            }
+        }
+
+        public List<String> getOfflineModeServers() {
+            return offlineModeServerList;
+        }
+
+        public boolean isOfflineModeServer(String serverName) {
+            return offlineModeServers.contains(serverName);
+        }
+
+        public boolean isDebugEnabled() {
+            return debugEnabled;
+        }
+
+        public StorageEngine getStorageEngine() {
+            return storageEngine;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public UuidCache.EvictionPolicy getCacheEvictionPolicy() {
+            return cacheEvictionPolicy;
+        }
+
+        public double getBloomFilterFpp() {
+            return bloomFilterFpp;
+        }
+
+        public int getStorageThreads() {
+            return storageThreads;
+        }
+
+        public int getLookupTimeoutMs() {
+            return lookupTimeoutMs;
+        }
+
+        public int getMaxInflightLookups() {
+            return maxInflightLookups;
+        }
+
+        public int getMetricsExportIntervalSeconds() {
+            return metricsExportIntervalSeconds;
+        }
+
+        public int getWriteQueueCapacity() {
+            return writeQueueCapacity;
+        }
+
+        public int getWriteBatchSize() {
+            return writeBatchSize;
+        }
+
+        public int getWriteFlushIntervalMs() {
+            return writeFlushIntervalMs;
+        }
+
+        public SqliteOptions getSqliteOptions() {
+            return sqliteOptions;
+        }
+
+        public boolean isWarmupEnabled() {
+            return warmupEnabled;
+        }
+
+        public int getWarmupThreads() {
+            return warmupThreads;
+        }
+
+        public int getLastUpdatedGranularityMinutes() {
+            return lastUpdatedGranularityMinutes;
+        }
+
+        public String getReplicationDirectory() {
+            return replicationDirectory;
+        }
+
+        public String getReplicationProxyId() {
+            return replicationProxyId;
+        }
+
+        public int getReplicationPollIntervalMs() {
+            return replicationPollIntervalMs;
+        }
+
+        public int getSnapshotIntervalMinutes() {
+            return snapshotIntervalMinutes;
+        }
     }
 }
@@ -0,0 +1,235 @@
+package de.craftingworld.velocityuuidsync;
+
+import de.craftingworld.velocityuuidsync.storage.UuidStore;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary copy of every mapping, written periodically and on shutdown so the next start
+ * can rebuild the {@link PreloadedUuidIndex} from one sequential file read instead of a storage scan.
+ *
+ * <p>Layout, big-endian:</p>
+ * <pre>
+ * header   "VUSS" [version:1][created at:8]
+ * names    per mapping: [shared prefix length:1][suffix length:1][suffix:n]
+ * uuids    per mapping: [msb:8][lsb:8], in the same order
+ * trailer  [count:4][names section length:4][crc32c:4]
+ * </pre>
+ *
+ * <p>Names are written in username order where the storage engine provides it, so each one only
+ * stores the bytes that differ from its predecessor; a typical mapping takes about 24 bytes.
+ * The CRC covers everything before it. A file that is cut short or fails the check is ignored,
+ * and the plugin falls back to the regular warm-up.</p>
+ */
+public final class MappingSnapshot {
+
+    public static final String FILE_NAME = "uuid-mappings.snapshot";
+
+    private static final byte[] MAGIC = {'V', 'U', 'S', 'S'};
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = MAGIC.length + 1 + 8;
+    private static final int TRAILER_BYTES = 4 + 4 + 4;
+    private static final int MAX_NAME_BYTES = 255;
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    private final byte[] data;
+    private final long createdAt;
+    private final int size;
+    private final int namesLength;
+
+    private MappingSnapshot(byte[] data, long createdAt, int size, int namesLength) {
+        this.data = data;
+        this.createdAt = createdAt;
+        this.size = size;
+        this.namesLength = namesLength;
+    }
+
+    /**
+     * Receives decoded mappings. The name buffer is reused for the next mapping.
+     */
+    @FunctionalInterface
+    interface MappingVisitor {
+        void accept(byte[] name, int length, long msb, long lsb);
+    }
+
+    /**
+     * Write every mapping in {@code store} to {@code file}, replacing it atomically once complete.
+     * The creation time is taken before the scan starts, so changes made during the scan are
+     * newer than the snapshot and get replayed on restore.
+     *
+     * @return the number of mappings written
+     */
+    public static int write(UuidStore store, Path file) throws Exception {
+        long createdAt = System.currentTimeMillis();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        SectionWriter names;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Not closed itself: closing it would close the channel before the CRC is appended
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), WRITE_BUFFER_BYTES));
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(createdAt);
+
+            names = new SectionWriter(out);
+            try {
+                store.forEachInUsernameOrder(names::add);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            for (int i = 0; i < names.size * 2; i++) {
+                out.writeLong(names.uuids[i]);
+            }
+            out.writeInt(names.size);
+            out.writeInt((int) names.length);
+            out.flush();
+
+            ByteBuffer checksum = ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip();
+            while (checksum.hasRemaining()) {
+                channel.write(checksum);
+            }
+            channel.force(false);
+        } catch (Exception e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return names.size;
+    }
+
+    /**
+     * Prefix-compresses names as they arrive and keeps the UUIDs until the names are done.
+     */
+    private static final class SectionWriter {
+        private final DataOutputStream out;
+        private final byte[] previous = new byte[MAX_NAME_BYTES];
+        private int previousLength;
+        private long[] uuids = new long[1024];
+        private int size;
+        private long length;
+
+        private SectionWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void add(String username, UUID uuid) {
+            byte[] name = username.getBytes(StandardCharsets.UTF_8);
+            if (name.length > MAX_NAME_BYTES) {
+                // Not a Minecraft name; the snapshot cannot hold it, storage still answers for it
+                return;
+            }
+            int shared = Arrays.mismatch(previous, 0, previousLength, name, 0, name.length);
+            if (shared < 0) {
+                shared = name.length;
+            }
+            try {
+                out.writeByte(shared);
+                out.writeByte(name.length - shared);
+                out.write(name, shared, name.length - shared);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            System.arraycopy(name, shared, previous, shared, name.length - shared);
+            previousLength = name.length;
+            length += 2 + name.length - shared;
+            if (length > Integer.MAX_VALUE) {
+                throw new UncheckedIOException(new IOException("Too many mappings for one snapshot file"));
+            }
+
+            if (size * 2 == uuids.length) {
+                uuids = Arrays.copyOf(uuids, uuids.length * 2);
+            }
+            uuids[size * 2] = uuid.getMostSignificantBits();
+            uuids[size * 2 + 1] = uuid.getLeastSignificantBits();
+            size++;
+        }
+    }
+
+    /**
+     * Read and verify a snapshot, or return {@code null} if there is none.
+     *
+     * @throws IOException if the file is damaged or of an unsupported version
+     */
+    public static MappingSnapshot read(Path file) throws IOException {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (data.length < HEADER_BYTES + TRAILER_BYTES) {
+            throw new IOException("Snapshot is truncated (" + data.length + " bytes)");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (!Arrays.equals(data, 0, MAGIC.length, MAGIC, 0, MAGIC.length) || data[MAGIC.length] != VERSION) {
+            throw new IOException("Not a UUID snapshot of a supported version");
+        }
+
+        int trailer = data.length - TRAILER_BYTES;
+        CRC32C crc = new CRC32C();
+        crc.update(data, 0, trailer + 8);
+        if (buffer.getInt(trailer + 8) != (int) crc.getValue()) {
+            throw new IOException("Snapshot checksum does not match");
+        }
+        int size = buffer.getInt(trailer);
+        int namesLength = buffer.getInt(trailer + 4);
+        if (size < 0 || namesLength < 0 || HEADER_BYTES + (long) namesLength + 16L * size != trailer) {
+            throw new IOException("Snapshot sections do not add up");
+        }
+        return new MappingSnapshot(data, buffer.getLong(MAGIC.length + 1), size, namesLength);
+    }
+
+    void forEach(MappingVisitor visitor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte[] name = new byte[MAX_NAME_BYTES];
+        int nameLength = 0;
+        int position = HEADER_BYTES;
+        int namesEnd = HEADER_BYTES + namesLength;
+        int uuidPosition = namesEnd;
+        for (int i = 0; i < size; i++) {
+            if (position + 2 > namesEnd) {
+                throw new IOException("Snapshot names end after " + i + " of " + size + " mappings");
+            }
+            int shared = data[position] & 0xFF;
+            int suffix = data[position + 1] & 0xFF;
+            if (shared > nameLength || shared + suffix > MAX_NAME_BYTES || position + 2 + suffix > namesEnd) {
+                throw new IOException("Snapshot name " + i + " is malformed");
+            }
+            System.arraycopy(data, position + 2, name, shared, suffix);
+            nameLength = shared + suffix;
+            position += 2 + suffix;
+
+            visitor.accept(name, nameLength, buffer.getLong(uuidPosition), buffer.getLong(uuidPosition + 8));
+            uuidPosition += 16;
+        }
+    }
+
+    /**
+     * When the scan that produced this snapshot started, in epoch milliseconds.
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,294 @@
+package de.craftingworld.velocityuuidsync;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read-only username -> UUID index built once at startup by the warm-up or from a {@link MappingSnapshot}.
+ *
+ * <p>Nothing is stored as objects: usernames are packed back to back as ASCII bytes,
+ * UUIDs as pairs of longs, and an open-addressing table of ints points into those arrays.
+ * At roughly 40 bytes per mapping, two million mappings take about 80 MB instead of the
+ * several hundred MB the same data needs as {@code String}/{@code UUID} map entries.</p>
+ *
+ * <p>Entries cannot change. When a username is later mapped to a different UUID,
+ * {@link #invalidate} marks the entry stale and lookups fall through to the cache or storage.</p>
+ */
+public class PreloadedUuidIndex {
+
+    // Minecraft names are at most 16 characters; longer ones are not indexed
+    static final int MAX_NAME_LENGTH = 16;
+
+    private final byte[] names;
+    private final int[] nameOffsets;
+    private final long[] uuids;
+    private final int[] table;
+    private final int mask;
+    private final int size;
+    private final AtomicLongArray stale;
+
+    private PreloadedUuidIndex(byte[] names, int[] nameOffsets, long[] uuids, int size) {
+        this.names = names;
+        this.nameOffsets = nameOffsets;
+        this.uuids = uuids;
+        this.size = size;
+        this.stale = new AtomicLongArray(Math.max(1, (size + 63) >>> 6));
+
+        // Keep the load factor at or below 0.5 so probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        for (int entry = 0; entry < size; entry++) {
+            insert(entry);
+        }
+    }
+
+    private void insert(int entry) {
+        int start = nameOffsets[entry];
+        int length = nameOffsets[entry + 1] - start;
+        int slot = hash(names, start, length) & mask;
+        while (true) {
+            int existing = table[slot] - 1;
+            if (existing < 0) {
+                table[slot] = entry + 1;
+                return;
+            }
+            if (sameName(existing, start, length)) {
+                // Duplicate name: the later entry wins
+                table[slot] = entry + 1;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean sameName(int entry, int start, int length) {
+        int otherStart = nameOffsets[entry];
+        return nameOffsets[entry + 1] - otherStart == length
+                && Arrays.equals(names, start, start + length, names, otherStart, otherStart + length);
+    }
+
+    /**
+     * Look up an already lowercased username, or {@code null} if it is not indexed or stale.
+     */
+    public UUID get(String key) {
+        int entry = find(key);
+        if (entry < 0 || isStale(entry)) {
+            return null;
+        }
+        return new UUID(uuids[entry * 2], uuids[entry * 2 + 1]);
+    }
+
+    /**
+     * Mark the entry for {@code key} stale unless it already maps to {@code uuid}.
+     */
+    public void invalidate(String key, UUID uuid) {
+        int entry = find(key);
+        if (entry >= 0 && (uuids[entry * 2] != uuid.getMostSignificantBits()
+                || uuids[entry * 2 + 1] != uuid.getLeastSignificantBits())) {
+            long bit = 1L << entry;
+            stale.getAndUpdate(entry >>> 6, bits -> bits | bit);
+        }
+    }
+
+    private boolean isStale(int entry) {
+        return (stale.get(entry >>> 6) & (1L << entry)) != 0;
+    }
+
+    private int find(String key) {
+        int length = key.length();
+        if (length == 0 || length > MAX_NAME_LENGTH) {
+            return -1;
+        }
+        // Same FNV-1a as hash(byte[]), computed on the chars so lookups allocate nothing
+        int h = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c > 0x7F) {
+                return -1;
+            }
+            h = (h ^ c) * 0x01000193;
+        }
+
+        int slot = mix(h) & mask;
+        while (true) {
+            int entry = table[slot] - 1;
+            if (entry < 0) {
+                return -1;
+            }
+            if (matches(entry, key)) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean matches(int entry, String key) {
+        int start = nameOffsets[entry];
+        if (nameOffsets[entry + 1] - start != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (names[start + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] bytes, int start, int length) {
+        int h = 0x811C9DC5;
+        for (int i = start; i < start + length; i++) {
+            h = (h ^ bytes[i]) * 0x01000193;
+        }
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        // Spread the low bits used by the mask
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Approximate heap footprint of the arrays, for logging.
+     */
+    public long getMemoryBytes() {
+        return names.length + 4L * nameOffsets.length + 8L * uuids.length + 4L * table.length + 8L * stale.length();
+    }
+
+    /**
+     * Collects mappings from one loader thread. Not thread-safe; use one per thread and
+     * combine them with {@link #build(List)}.
+     */
+    public static final class Chunk {
+        private byte[] names;
+        private int[] nameOffsets;
+        private long[] uuids;
+        private int size;
+        private int namesLength;
+        private long skipped;
+
+        public Chunk() {
+            this(64);
+        }
+
+        /**
+         * A chunk sized up front for about {@code expectedSize} mappings.
+         */
+        Chunk(int expectedSize) {
+            int capacity = Math.max(64, expectedSize);
+            names = new byte[capacity * 12];
+            nameOffsets = new int[capacity];
+            uuids = new long[capacity * 2];
+        }
+
+        /**
+         * Add an already lowercased mapping. Names that are not short ASCII are skipped;
+         * they are still answered by the cache and storage.
+         */
+        public void add(String key, UUID uuid) {
+            int length = key.length();
+            if (length == 0 || length > MAX_NAME_LENGTH) {
+                skipped++;
+                return;
+            }
+            for (int i = 0; i < length; i++) {
+                if (key.charAt(i) > 0x7F) {
+                    skipped++;
+                    return;
+                }
+            }
+
+            reserve(length);
+            for (int i = 0; i < length; i++) {
+                names[namesLength + i] = (byte) key.charAt(i);
+            }
+            append(length, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        }
+
+        /**
+         * Same as {@link #add(String, UUID)} for a name given as its first {@code length} UTF-8 bytes,
+         * without creating any objects.
+         */
+        void add(byte[] name, int length, long msb, long lsb) {
+            if (length == 0 || length > MAX_NAME_LENGTH) {
+                skipped++;
+                return;
+            }
+            for (int i = 0; i < length; i++) {
+                // Bytes of multi-byte UTF-8 sequences are negative
+                if (name[i] < 0) {
+                    skipped++;
+                    return;
+                }
+            }
+
+            reserve(length);
+            System.arraycopy(name, 0, names, namesLength, length);
+            append(length, msb, lsb);
+        }
+
+        private void reserve(int length) {
+            if (namesLength + length > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, namesLength + length));
+            }
+            if (size == nameOffsets.length) {
+                nameOffsets = Arrays.copyOf(nameOffsets, size * 2);
+                uuids = Arrays.copyOf(uuids, size * 4);
+            }
+        }
+
+        private void append(int length, long msb, long lsb) {
+            nameOffsets[size] = namesLength;
+            namesLength += length;
+            uuids[size * 2] = msb;
+            uuids[size * 2 + 1] = lsb;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+    }
+
+    /**
+     * Concatenate the chunks into exact-size arrays and build the hash table.
+     */
+    public static PreloadedUuidIndex build(List<Chunk> chunks) {
+        int size = 0;
+        int namesLength = 0;
+        for (Chunk chunk : chunks) {
+            size += chunk.size;
+            namesLength += chunk.namesLength;
+        }
+
+        byte[] names = new byte[namesLength];
+        int[] nameOffsets = new int[size + 1];
+        long[] uuids = new long[size * 2];
+        int entry = 0;
+        int namePosition = 0;
+        for (Chunk chunk : chunks) {
+            System.arraycopy(chunk.names, 0, names, namePosition, chunk.namesLength);
+            for (int i = 0; i < chunk.size; i++) {
+                nameOffsets[entry + i] = namePosition + chunk.nameOffsets[i];
+            }
+            System.arraycopy(chunk.uuids, 0, uuids, entry * 2, chunk.size * 2);
+            entry += chunk.size;
+            namePosition += chunk.namesLength;
+        }
+        nameOffsets[size] = namePosition;
+        return new PreloadedUuidIndex(names, nameOffsets, uuids, size);
+    }
+}
@@ -0,0 +1,135 @@
+package de.craftingworld.velocityuuidsync;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over lowercased usernames.
+ * A negative answer means the username has definitely never been stored.
+ */
+public class UsernameBloomFilter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    // Puts that set at least one new bit: a close estimate of the distinct names inserted
+    private final AtomicLong added = new AtomicLong();
+
+    public UsernameBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) / 64));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        this.capacity = n;
+    }
+
+    public void put(String username) {
+        setBits(hash64(username));
+    }
+
+    /**
+     * Same as {@link #put(String)} for a name given as its first {@code length} UTF-8 bytes.
+     * ASCII names are hashed straight from the bytes, which gives the same hash as their chars.
+     */
+    void put(byte[] name, int length) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < length; i++) {
+            if (name[i] < 0) {
+                put(new String(name, 0, length, StandardCharsets.UTF_8));
+                return;
+            }
+            hash ^= name[i];
+            hash *= FNV_PRIME;
+        }
+        setBits(finish(hash));
+    }
+
+    private void setBits(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        boolean changed = false;
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0) {
+                if (bits.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = bits.get(word);
+            }
+        }
+        if (changed) {
+            added.incrementAndGet();
+        }
+    }
+
+    public boolean mightContain(String username) {
+        long hash = hash64(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(int combined) {
+        return (combined & 0x7FFFFFFFL) % bitCount;
+    }
+
+    /**
+     * Whether more names went in than the filter was sized for, so its false-positive
+     * rate is above the configured one and keeps rising.
+     */
+    public boolean isSaturated() {
+        return added.get() > capacity;
+    }
+
+    public long getApproximateSize() {
+        return added.get();
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private static long hash64(String value) {
+        // FNV-1a over the UTF-16 chars followed by a murmur3 finalizer
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return finish(hash);
+    }
+
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,348 @@
+package de.craftingworld.velocityuuidsync;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache for username -> UUID mappings.
+ * Keys are expected to be lowercased by the caller.
+ *
+ * <p>Entries are spread over independently locked segments by key hash, so concurrent logins
+ * only contend when their names land in the same segment. Each segment evicts on its own
+ * according to the configured {@link EvictionPolicy}.</p>
+ */
+public class UuidCache {
+
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+    private static final int MAX_SEGMENTS = 64;
+
+    /**
+     * How a full segment picks the entry to drop.
+     */
+    public enum EvictionPolicy {
+        /** Drop the least recently used entry. */
+        LRU,
+        /**
+         * W-TinyLFU: new entries enter a small LRU window; when they leave it they only replace
+         * the least recently used main entry if they were requested more often. Keeps regulars
+         * cached through a burst of one-time names.
+         */
+        TINY_LFU;
+
+        public static EvictionPolicy fromName(String name) {
+            String normalized = name.trim().replace("-", "").replace("_", "");
+            for (EvictionPolicy policy : values()) {
+                if (policy.name().replace("_", "").equalsIgnoreCase(normalized)) {
+                    return policy;
+                }
+            }
+            throw new IllegalArgumentException("Unknown cache eviction policy: " + name);
+        }
+    }
+
+    private final int maxSize;
+    private final EvictionPolicy policy;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public UuidCache(int maxSize) {
+        this(maxSize, EvictionPolicy.LRU);
+    }
+
+    public UuidCache(int maxSize, EvictionPolicy policy) {
+        this.maxSize = Math.max(0, maxSize);
+        this.policy = policy;
+        int wanted = Math.min(MAX_SEGMENTS, Math.max(1, this.maxSize / MIN_SEGMENT_CAPACITY));
+        int count = Math.min(Integer.highestOneBit(wanted), Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4));
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            // Spread the remainder so the capacities add up to maxSize exactly
+            int capacity = this.maxSize / count + (i < this.maxSize % count ? 1 : 0);
+            segments[i] = policy == EvictionPolicy.TINY_LFU ? new TinyLfuSegment(capacity) : new LruSegment(capacity);
+        }
+    }
+
+    private Segment segmentFor(String username) {
+        int h = username.hashCode();
+        h ^= h >>> 16;
+        return segments[h & segmentMask];
+    }
+
+    public UUID get(String username) {
+        UUID uuid = segmentFor(username).get(username, true);
+        if (uuid != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return uuid;
+    }
+
+    /**
+     * Like {@link #get} but not counted in the hit and miss statistics.
+     */
+    public UUID peek(String username) {
+        return segmentFor(username).get(username, false);
+    }
+
+    public void put(String username, UUID uuid) {
+        if (maxSize <= 0) {
+            return;
+        }
+        segmentFor(username).put(username, uuid);
+    }
+
+    public void invalidate(String username) {
+        segmentFor(username).remove(username, null);
+    }
+
+    /**
+     * Remove the entry only if it still maps to {@code uuid}.
+     */
+    public void invalidate(String username, UUID uuid) {
+        segmentFor(username).remove(username, uuid);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public EvictionPolicy getPolicy() {
+        return policy;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size() + "/" + maxSize
+                + ", policy=" + policy
+                + ", hits=" + getHits()
+                + ", misses=" + getMisses()
+                + ", evictions=" + getEvictions();
+    }
+
+    /**
+     * One lock's worth of entries. All methods synchronize on the segment.
+     */
+    private abstract static class Segment {
+        final int capacity;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        abstract UUID get(String username, boolean record);
+
+        abstract void put(String username, UUID uuid);
+
+        /**
+         * Remove {@code username}, or only if it maps to {@code uuid} when that is not null.
+         */
+        abstract void remove(String username, UUID uuid);
+
+        abstract int size();
+    }
+
+    private final class LruSegment extends Segment {
+        // Access-ordered, so the eldest entry is always the least recently used one
+        private final LinkedHashMap<String, UUID> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        LruSegment(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        synchronized UUID get(String username, boolean record) {
+            return entries.get(username);
+        }
+
+        @Override
+        synchronized void put(String username, UUID uuid) {
+            entries.put(username, uuid);
+            if (entries.size() > capacity) {
+                removeEldest(entries);
+                evictions.increment();
+            }
+        }
+
+        @Override
+        synchronized void remove(String username, UUID uuid) {
+            if (uuid == null) {
+                entries.remove(username);
+            } else {
+                entries.remove(username, uuid);
+            }
+        }
+
+        @Override
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    private final class TinyLfuSegment extends Segment {
+        private final int windowCapacity;
+        private final LinkedHashMap<String, UUID> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, UUID> main = new LinkedHashMap<>(16, 0.75f, true);
+        private final FrequencySketch sketch;
+
+        TinyLfuSegment(int capacity) {
+            super(capacity);
+            // 1% window as in Caffeine, but at least one entry
+            this.windowCapacity = Math.max(1, capacity / 100);
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        @Override
+        synchronized UUID get(String username, boolean record) {
+            if (record) {
+                sketch.increment(username.hashCode());
+            }
+            UUID uuid = window.get(username);
+            return uuid != null ? uuid : main.get(username);
+        }
+
+        @Override
+        synchronized void put(String username, UUID uuid) {
+            if (window.containsKey(username)) {
+                window.put(username, uuid);
+                return;
+            }
+            if (main.containsKey(username)) {
+                main.put(username, uuid);
+                return;
+            }
+            sketch.increment(username.hashCode());
+            window.put(username, uuid);
+            if (window.size() <= windowCapacity) {
+                return;
+            }
+
+            // The window overflowed: its eldest entry competes with the main victim for a place
+            Map.Entry<String, UUID> candidate = removeEldest(window);
+            int mainCapacity = capacity - windowCapacity;
+            if (main.size() < mainCapacity) {
+                main.put(candidate.getKey(), candidate.getValue());
+                return;
+            }
+            evictions.increment();
+            if (mainCapacity <= 0) {
+                return;
+            }
+            String victim = main.keySet().iterator().next();
+            if (sketch.frequency(candidate.getKey().hashCode()) > sketch.frequency(victim.hashCode())) {
+                main.remove(victim);
+                main.put(candidate.getKey(), candidate.getValue());
+            }
+        }
+
+        @Override
+        synchronized void remove(String username, UUID uuid) {
+            if (uuid == null) {
+                window.remove(username);
+                main.remove(username);
+            } else {
+                window.remove(username, uuid);
+                main.remove(username, uuid);
+            }
+        }
+
+        @Override
+        synchronized int size() {
+            return window.size() + main.size();
+        }
+    }
+
+    private static Map.Entry<String, UUID> removeEldest(LinkedHashMap<String, UUID> entries) {
+        Iterator<Map.Entry<String, UUID>> iterator = entries.entrySet().iterator();
+        Map.Entry<String, UUID> eldest = iterator.next();
+        Map.Entry<String, UUID> copy = Map.entry(eldest.getKey(), eldest.getValue());
+        iterator.remove();
+        return copy;
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, four per key, estimating how often a key was requested.
+     * All counters are halved after a sample of ten times the capacity, so old popularity fades.
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = {
+                0x97CB3127D0A4C2F1L, 0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int size = Integer.highestOneBit(Math.max(8, capacity) - 1) << 1;
+            this.table = new long[size];
+            this.mask = size - 1;
+            this.sampleSize = Math.max(10, capacity * 10);
+        }
+
+        int frequency(int hash) {
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long h = mix(hash, i);
+                frequency = Math.min(frequency, (int) (table[(int) h & mask] >>> counterShift(h)) & 0xF);
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long h = mix(hash, i);
+                int index = (int) h & mask;
+                int shift = counterShift(h);
+                if (((table[index] >>> shift) & 0xF) < 0xF) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                }
+                additions /= 2;
+            }
+        }
+
+        private static long mix(int hash, int depth) {
+            long h = (hash + SEEDS[depth]) * SEEDS[depth];
+            return h ^ (h >>> 29);
+        }
+
+        private static int counterShift(long h) {
+            return (int) (h >>> 60) << 2;
+        }
+    }
+}
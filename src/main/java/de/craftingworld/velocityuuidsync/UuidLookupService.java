@@ -0,0 +1,102 @@
+package de.craftingworld.velocityuuidsync;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs storage lookups on the storage executor with a deadline and a cap on
+ * in-flight requests, so a stalled database bounds login latency instead of
+ * queueing every player behind it.
+ *
+ * <p>A lookup that misses its deadline is answered from the cache if possible,
+ * otherwise with {@code null} (the default offline profile). Lookups beyond the
+ * in-flight limit are shed with {@code null} without touching storage; callers
+ * check the cache before calling {@link #lookup}.</p>
+ */
+public class UuidLookupService {
+
+    private final UuidStorageManager storageManager;
+    private final Executor executor;
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private volatile long timeoutMillis;
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    public UuidLookupService(UuidStorageManager storageManager, Executor executor, int maxInFlight, long timeoutMillis) {
+        this.storageManager = storageManager;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(Math.max(1, maxInFlight));
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Look up a username in storage. The returned future always completes within
+     * the deadline, with the stored UUID or {@code null} if none could be found in time.
+     */
+    public CompletableFuture<UUID> lookup(String username) {
+        if (!permits.tryAcquire()) {
+            shed.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<UUID> result = new CompletableFuture<>();
+        try {
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return storageManager.loadUuid(username);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor).whenComplete((uuid, cause) -> {
+                // The permit is held until storage actually answers, even after a timeout
+                permits.release();
+                if (cause != null) {
+                    result.completeExceptionally(cause);
+                } else {
+                    result.complete(uuid);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        long deadline = timeoutMillis;
+        if (deadline > 0) {
+            CompletableFuture.delayedExecutor(deadline, TimeUnit.MILLISECONDS, Runnable::run).execute(() -> {
+                if (!result.isDone() && result.complete(storageManager.getCachedUuid(username))) {
+                    timeouts.increment();
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Change the deadline for lookups started from now on; 0 disables it.
+     */
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public int getInFlight() {
+        return Math.max(0, maxInFlight - permits.availablePermits());
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+}
@@ -1,90 +1,628 @@
 package de.craftingworld.velocityuuidsync;
 
+import de.craftingworld.velocityuuidsync.metrics.LatencyHistogram;
+import de.craftingworld.velocityuuidsync.storage.NameChange;
+import de.craftingworld.velocityuuidsync.storage.StorageEngine;
+import de.craftingworld.velocityuuidsync.storage.UuidMapping;
+import de.craftingworld.velocityuuidsync.storage.UuidStore;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 
 public class UuidStorageManager {
 
-    private final Path dataDirectory;
+    private static final long MIN_BLOOM_FILTER_CAPACITY = 100000;
+    private static final long WARM_UP_PROGRESS_INTERVAL = 250000;
+    // Changes are replayed from a little before the snapshot, for writes still in flight while it was taken
+    private static final long SNAPSHOT_REPLAY_OVERLAP_MS = 10000;
+
     private final Logger logger;
-    private Connection connection;
+    private final UuidStore store;
+    private final UuidCache cache;
+    private final double bloomFilterFpp;
+    private final LongAdder bloomRejections = new LongAdder();
+    private final LatencyHistogram lookupLatency = new LatencyHistogram();
+    private final LatencyHistogram storeLatency = new LatencyHistogram();
+    private final LongAdder preloadedHits = new LongAdder();
+    private final LongAdder skippedWrites = new LongAdder();
+    // Returning players whose last_updated is refreshed by the next flushTouches()
+    private final Map<String, UUID> pendingTouches = new ConcurrentHashMap<>();
+    // Primed by the write-behind queue but not yet persisted; never trusted to skip a write
+    private final Map<String, UUID> unflushed = new ConcurrentHashMap<>();
+    private volatile UsernameBloomFilter bloomFilter;
+    // The replacement being filled by buildBloomFilter; new names go into both until it is published
+    private volatile UsernameBloomFilter rebuildingBloomFilter;
+    private final AtomicBoolean bloomRebuildStarted = new AtomicBoolean();
+    private volatile PreloadedUuidIndex preloadedIndex;
+    // Mappings primed while a warm-up is scanning, so they can be marked stale in the new index
+    private volatile Queue<UuidMapping> primedDuringWarmUp;
+    // Told about every mapping this proxy persists, e.g. to replicate it to other proxies
+    private volatile WriteListener writeListener;
+    private final Object snapshotLock = new Object();
+    // Held from a local write until its listener has recorded it, and while replicated mappings
+    // are checked and written, so a replicated write can never land between the two
+    private final Object writeLock = new Object();
+
+    /**
+     * Receives every mapping this proxy persists.
+     */
+    public interface WriteListener {
+        /**
+         * Called with the write lock held, in the order the mappings were persisted.
+         * Must not block; slow work belongs in {@link #afterPersisted()}.
+         */
+        void persisted(List<UuidMapping> mappings);
+        
+        /**
+         * Called after the write lock is released, e.g. to force what {@link #persisted} recorded to disk.
+         */
+        void afterPersisted();
+    }
 
     public UuidStorageManager(Path dataDirectory, Logger logger) {
-        this.dataDirectory = dataDirectory;
+        this(dataDirectory, logger, ConfigManager.DEFAULT_CACHE_SIZE);
+    }
+
+    public UuidStorageManager(Path dataDirectory, Logger logger, int cacheSize) {
+        this(StorageEngine.SQLITE.create(dataDirectory, logger), logger, cacheSize);
+    }
+
+    public UuidStorageManager(UuidStore store, Logger logger, int cacheSize) {
+        this(store, logger, cacheSize, ConfigManager.DEFAULT_BLOOM_FILTER_FPP);
+    }
+
+    public UuidStorageManager(UuidStore store, Logger logger, int cacheSize, double bloomFilterFpp) {
+        this(store, logger, cacheSize, UuidCache.EvictionPolicy.LRU, bloomFilterFpp);
+    }
+
+    public UuidStorageManager(UuidStore store, Logger logger, int cacheSize,
+                              UuidCache.EvictionPolicy evictionPolicy, double bloomFilterFpp) {
         this.logger = logger;
+        this.store = store;
+        this.cache = new UuidCache(cacheSize, evictionPolicy);
+        this.bloomFilterFpp = bloomFilterFpp;
+    }
+
+    public void initialize() throws Exception {
+        initialize(null);
+    }
+
+    /**
+     * Open storage and, if {@code snapshotFile} holds a usable snapshot, restore the preloaded
+     * index and the Bloom filter from it instead of scanning storage. The snapshot is ignored
+     * when the engine does not {@linkplain #supportsSnapshots support} it.
+     *
+     * @return whether the index was restored; if not, {@link #warmUp} can still build it
+     */
+    public boolean initialize(Path snapshotFile) throws Exception {
+        store.initialize();
+        
+        if (snapshotFile != null && !supportsSnapshots()) {
+            logger.info("Not using UUID snapshots: the storage engine keeps no change times, so restoring "
+                    + "one would still read every mapping, which its startup load already did");
+            snapshotFile = null;
+        }
+        
+        boolean withBloomFilter = bloomFilterFpp > 0 && bloomFilterFpp < 1;
+        if (snapshotFile != null && restoreSnapshot(snapshotFile, withBloomFilter)) {
+            return true;
+        }
+        if (withBloomFilter) {
+            buildBloomFilter();
+        }
+        return false;
     }
 
-    public void initialize() throws SQLException {
-        // Explicitly load SQLite JDBC driver for plugin classloader compatibility
+    /**
+     * Rebuild the index from a snapshot, then replay only what storage changed since it was written.
+     */
+    private boolean restoreSnapshot(Path file, boolean withBloomFilter) throws Exception {
+        long start = System.currentTimeMillis();
+        MappingSnapshot snapshot;
         try {
-            Class.forName("org.sqlite.JDBC");
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("SQLite JDBC driver not found in classpath", e);
+            snapshot = MappingSnapshot.read(file);
+        } catch (IOException e) {
+            logger.warn("Ignoring UUID snapshot {}: {}", file, e.getMessage());
+            return false;
+        }
+        if (snapshot == null) {
+            return false;
         }
         
-        Path dbPath = dataDirectory.resolve("uuid-mappings.db");
-        String jdbcUrl = "jdbc:sqlite:" + dbPath.toString();
+        // Same headroom as buildBloomFilter; the filter needs every name, not only the indexable ones
+        UsernameBloomFilter filter = withBloomFilter
+                ? new UsernameBloomFilter(Math.max(MIN_BLOOM_FILTER_CAPACITY, snapshot.size() * 2L), bloomFilterFpp)
+                : null;
+        CompletableFuture<Void> filterFilled = CompletableFuture.completedFuture(null);
+        if (filter != null) {
+            // Filled on a second thread while this one decodes the index
+            filterFilled = CompletableFuture.runAsync(() -> {
+                try {
+                    snapshot.forEach((name, length, msb, lsb) -> filter.put(name, length));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, runnable -> {
+                Thread thread = new Thread(runnable, "velocity-uuid-sync-snapshot");
+                thread.setDaemon(true);
+                thread.start();
+            });
+        }
+        PreloadedUuidIndex.Chunk restored = new PreloadedUuidIndex.Chunk(snapshot.size());
+        try {
+            snapshot.forEach(restored::add);
+            filterFilled.join();
+        } catch (IOException | CompletionException e) {
+            logger.warn("Ignoring UUID snapshot {}: {}", file, e.getMessage());
+            return false;
+        }
         
-        connection = DriverManager.getConnection(jdbcUrl);
-        createTables();
+        // Entries of the later chunk win, so replayed changes replace what the snapshot had
+        PreloadedUuidIndex.Chunk replayed = new PreloadedUuidIndex.Chunk();
+        AtomicLong replayedChanges = new AtomicLong();
+        store.forEachChangedSince(snapshot.getCreatedAt() - SNAPSHOT_REPLAY_OVERLAP_MS, (username, uuid) -> {
+            replayed.add(username, uuid);
+            if (filter != null) {
+                filter.put(username);
+            }
+            replayedChanges.incrementAndGet();
+        });
+        PreloadedUuidIndex index = PreloadedUuidIndex.build(List.of(restored, replayed));
+        bloomFilter = filter;
+        preloadedIndex = index;
         
-        logger.info("UUID storage initialized at: {}", dbPath);
+        logger.info("Restored {} mappings from a {} s old snapshot and replayed {} later changes in {} ms, {} MiB",
+                snapshot.size(), Math.max(0, start - snapshot.getCreatedAt()) / 1000, replayedChanges.get(),
+                System.currentTimeMillis() - start, index.getMemoryBytes() / 1024 / 1024);
+        return true;
+    }
+
+    /**
+     * Whether storage can list recent changes, which restoring a snapshot relies on.
+     */
+    public boolean supportsSnapshots() {
+        return store.tracksChanges();
+    }
+
+    /**
+     * Write every stored mapping to {@code file} for {@link #initialize(Path)} on the next start.
+     * Concurrent calls run one after the other.
+     */
+    public void writeSnapshot(Path file) throws Exception {
+        synchronized (snapshotLock) {
+            long start = System.currentTimeMillis();
+            int written = MappingSnapshot.write(store, file);
+            logger.info("Wrote UUID snapshot of {} mappings ({} KiB) in {} ms",
+                    written, Files.size(file) / 1024, System.currentTimeMillis() - start);
+        }
     }
 
-    private void createTables() throws SQLException {
-        String createTableSql = """
-                CREATE TABLE IF NOT EXISTS uuid_mappings (
-                    username TEXT PRIMARY KEY,
-                    uuid TEXT NOT NULL,
-                    last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                )
-                """;
+    private void buildBloomFilter() throws Exception {
+        long start = System.currentTimeMillis();
+        long count = store.count();
         
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(createTableSql);
+        // Leave headroom for new players joining until the next restart
+        long expected = Math.max(MIN_BLOOM_FILTER_CAPACITY, count * 2);
+        UsernameBloomFilter filter = new UsernameBloomFilter(expected, bloomFilterFpp);
+        rebuildingBloomFilter = filter;
+        try {
+            store.forEach((username, uuid) -> filter.put(username));
+            bloomFilter = filter;
+        } finally {
+            rebuildingBloomFilter = null;
+        }
+        
+        logger.info("Built username Bloom filter for {} mappings ({} KiB, {} hashes) in {} ms",
+                count, filter.getBitCount() / 8 / 1024, filter.getHashCount(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Add a stored or primed name to the Bloom filter, and start a rebuild with more room
+     * once it holds more names than it was sized for.
+     */
+    private void addToBloomFilter(String key) {
+        UsernameBloomFilter filter = bloomFilter;
+        if (filter != null) {
+            filter.put(key);
+            if (filter.isSaturated() && bloomRebuildStarted.compareAndSet(false, true)) {
+                rebuildBloomFilter(filter);
+            }
+        }
+        UsernameBloomFilter next = rebuildingBloomFilter;
+        if (next != null) {
+            next.put(key);
+        }
+    }
+
+    private void rebuildBloomFilter(UsernameBloomFilter saturated) {
+        logger.warn("Username Bloom filter holds about {} names but was sized for {}; rebuilding it",
+                saturated.getApproximateSize(), saturated.getCapacity());
+        Thread thread = new Thread(() -> {
+            try {
+                buildBloomFilter();
+                bloomRebuildStarted.set(false);
+            } catch (Exception e) {
+                // Not retried: the old filter stays correct, it only rejects fewer unknown names
+                logger.error("Failed to rebuild the username Bloom filter", e);
+            }
+        }, "velocity-uuid-sync-bloom-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Load every stored mapping into a {@link PreloadedUuidIndex} so first lookups after a
+     * restart are answered from memory. Storage is read in {@code threads} partitions in
+     * parallel; lookups keep working normally while this runs. Blocks until the index is in place.
+     */
+    public void warmUp(int threads) throws Exception {
+        long start = System.currentTimeMillis();
+        logger.info("Warming up UUID index with {} threads...", threads);
+        primedDuringWarmUp = new ConcurrentLinkedQueue<>();
+        
+        AtomicLong loaded = new AtomicLong();
+        List<PreloadedUuidIndex.Chunk> chunks = new ArrayList<>();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "velocity-uuid-sync-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        PreloadedUuidIndex index;
+        try {
+            List<Future<PreloadedUuidIndex.Chunk>> futures = new ArrayList<>();
+            for (int partition = 0; partition < threads; partition++) {
+                int current = partition;
+                futures.add(workers.submit(() -> {
+                    PreloadedUuidIndex.Chunk chunk = new PreloadedUuidIndex.Chunk();
+                    store.forEachInPartition(current, threads, (username, uuid) -> {
+                        chunk.add(username, uuid);
+                        long total = loaded.incrementAndGet();
+                        if (total % WARM_UP_PROGRESS_INTERVAL == 0) {
+                            logger.info("Warm-up: {} mappings loaded after {} ms", total, System.currentTimeMillis() - start);
+                        }
+                    });
+                    return chunk;
+                }));
+            }
+            for (Future<PreloadedUuidIndex.Chunk> future : futures) {
+                chunks.add(future.get());
+            }
+            index = PreloadedUuidIndex.build(chunks);
+        } catch (Exception e) {
+            primedDuringWarmUp = null;
+            throw e;
+        } finally {
+            workers.shutdownNow();
+        }
+        
+        // Publish first, then catch up on anything primed during the scan (see primeMapping)
+        preloadedIndex = index;
+        Queue<UuidMapping> primed = primedDuringWarmUp;
+        primedDuringWarmUp = null;
+        for (UuidMapping mapping : primed) {
+            index.invalidate(mapping.username(), mapping.uuid());
+        }
+        
+        long skipped = chunks.stream().mapToLong(PreloadedUuidIndex.Chunk::getSkipped).sum();
+        logger.info("Warm-up complete: {} mappings indexed ({} skipped) in {} ms, {} MiB",
+                index.size(), skipped, System.currentTimeMillis() - start, index.getMemoryBytes() / 1024 / 1024);
+    }
+
+    public void storeUuidMapping(String username, UUID uuid) throws Exception {
+        String key = username.toLowerCase();
+        synchronized (writeLock) {
+            long start = System.nanoTime();
+            store.put(key, uuid);
+            storeLatency.recordSince(start);
+            unflushed.remove(key, uuid);
+            
+            // Only update the cache once the row is persisted
+            primeMapping(key, uuid);
+            notifyWriteListener(List.of(new UuidMapping(key, uuid)));
+        }
+        afterWriteListener();
+    }
+
+    public void setWriteListener(WriteListener writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    private void notifyWriteListener(List<UuidMapping> mappings) {
+        WriteListener listener = writeListener;
+        if (listener != null) {
+            listener.persisted(mappings);
+        }
+    }
+
+    private void afterWriteListener() {
+        WriteListener listener = writeListener;
+        if (listener != null) {
+            listener.afterPersisted();
+        }
+    }
+
+    /**
+     * Store mappings received from another proxy and make them visible to lookups.
+     * {@code stillCurrent} is asked right before writing, with local writes held off, and
+     * mappings it rejects are dropped. Mappings that storage already holds are not rewritten,
+     * and the write listener is not told, so replicated writes are never echoed back.
+     * Returns the number written.
+     */
+    public int applyReplicated(List<UuidMapping> mappings, Predicate<UuidMapping> stillCurrent) throws Exception {
+        return applyReplicated(mappings, stillCurrent, false);
+    }
+
+    /**
+     * Like {@link #applyReplicated(List, Predicate)}, but with {@code onlyIfAbsent} a mapping is
+     * written only if storage holds none for its username yet.
+     */
+    public int applyReplicated(List<UuidMapping> mappings, Predicate<UuidMapping> stillCurrent,
+                               boolean onlyIfAbsent) throws Exception {
+        synchronized (writeLock) {
+            List<UuidMapping> winners = mappings.stream().filter(stillCurrent).toList();
+            if (winners.isEmpty()) {
+                return 0;
+            }
+            Map<String, UUID> current = store.getAll(winners.stream().map(UuidMapping::username).toList());
+            List<UuidMapping> changed = winners.stream()
+                    .filter(mapping -> onlyIfAbsent
+                            ? !current.containsKey(mapping.username())
+                            : !mapping.uuid().equals(current.get(mapping.username())))
+                    .toList();
+            if (changed.isEmpty()) {
+                return 0;
+            }
+            
+            long start = System.nanoTime();
+            store.putAll(changed);
+            storeLatency.recordSince(start);
+            for (UuidMapping mapping : changed) {
+                primeMapping(mapping.username(), mapping.uuid());
+            }
+            return changed.size();
+        }
+    }
+
+    /**
+     * Skip the write for a login whose mapping is already stored, as far as memory knows,
+     * and queue a last-seen refresh for it instead. Returns {@code false} if the mapping
+     * is new or changed, or still waiting in the write-behind queue, and must be written.
+     */
+    public boolean skipUnchangedMapping(String username, UUID uuid) {
+        String key = username.toLowerCase();
+        if (unflushed.containsKey(key)) {
+            return false;
+        }
+        UUID known = cache.peek(key);
+        if (known == null) {
+            PreloadedUuidIndex index = preloadedIndex;
+            known = index != null ? index.get(key) : null;
+        }
+        if (!uuid.equals(known)) {
+            return false;
+        }
+        pendingTouches.put(key, uuid);
+        skippedWrites.increment();
+        return true;
+    }
+
+    /**
+     * Write the queued last-seen refreshes in one batch. However often a player
+     * reconnected since the previous flush, they are touched once.
+     */
+    public void flushTouches() throws Exception {
+        if (pendingTouches.isEmpty()) {
+            return;
+        }
+        List<UuidMapping> touches = new ArrayList<>(pendingTouches.size());
+        for (Map.Entry<String, UUID> touch : pendingTouches.entrySet()) {
+            if (pendingTouches.remove(touch.getKey(), touch.getValue())) {
+                touches.add(new UuidMapping(touch.getKey(), touch.getValue()));
+            }
         }
+        long start = System.nanoTime();
+        store.touchAll(touches);
+        storeLatency.recordSince(start);
+    }
+
+    /**
+     * Make a mapping the write-behind queue is about to persist visible to lookups.
+     * Until {@link #storeUuidMappings} succeeds for it, it never lets a login skip its write.
+     */
+    public void primeUnflushedMapping(String key, UUID uuid) {
+        unflushed.put(key, uuid);
+        primeMapping(key, uuid);
     }
 
-    public void storeUuidMapping(String username, String uuid) throws SQLException {
-        String sql = """
-                INSERT INTO uuid_mappings (username, uuid, last_updated)
-                VALUES (?, ?, CURRENT_TIMESTAMP)
-                ON CONFLICT(username) DO UPDATE SET
-                    uuid = excluded.uuid,
-                    last_updated = CURRENT_TIMESTAMP
-                """;
+    /**
+     * Make a persisted mapping visible to lookups.
+     */
+    public void primeMapping(String key, UUID uuid) {
+        addToBloomFilter(key);
+        cache.put(key, uuid);
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, username.toLowerCase());
-            stmt.setString(2, uuid);
-            stmt.executeUpdate();
+        // Record before checking the index, so a warm-up finishing concurrently cannot miss it
+        Queue<UuidMapping> primed = primedDuringWarmUp;
+        if (primed != null) {
+            primed.add(new UuidMapping(key, uuid));
+        }
+        PreloadedUuidIndex index = preloadedIndex;
+        if (index != null) {
+            index.invalidate(key, uuid);
+        }
+    }
+
+    /**
+     * Take back mappings the write-behind queue primed but failed to persist, so lookups
+     * read storage again and the player's next login writes the mapping once more.
+     * An entry that has since been primed with a different UUID is left alone.
+     */
+    public void forgetPrimedMappings(List<UuidMapping> mappings) {
+        for (UuidMapping mapping : mappings) {
+            String key = mapping.username().toLowerCase();
+            unflushed.remove(key, mapping.uuid());
+            cache.invalidate(key, mapping.uuid());
         }
     }
 
-    public String getUuid(String username) throws SQLException {
-        String sql = "SELECT uuid FROM uuid_mappings WHERE username = ?";
+    /**
+     * Persist a batch of mappings in a single transaction.
+     * The write-behind queue primes the cache on enqueue; it is primed again here, since a
+     * replicated write may have replaced the entry in the meantime and is now overwritten.
+     */
+    public void storeUuidMappings(List<UuidMapping> mappings) throws Exception {
+        if (mappings.isEmpty()) {
+            return;
+        }
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, username.toLowerCase());
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("uuid");
+        List<UuidMapping> normalized = mappings.stream()
+                .map(mapping -> new UuidMapping(mapping.username().toLowerCase(), mapping.uuid()))
+                .toList();
+        synchronized (writeLock) {
+            store.putAll(normalized);
+            
+            // Unlike the cache, the filter only ever grows, so it is always safe to update
+            for (UuidMapping mapping : normalized) {
+                addToBloomFilter(mapping.username());
+                unflushed.remove(mapping.username(), mapping.uuid());
+                // A newer write for the name still queued keeps its own cache entry
+                if (!unflushed.containsKey(mapping.username())) {
+                    primeMapping(mapping.username(), mapping.uuid());
                 }
             }
+            notifyWriteListener(normalized);
         }
-        return null;
+        afterWriteListener();
     }
 
-    public void close() {
-        if (connection != null) {
-            try {
-                connection.close();
-                logger.info("UUID storage closed successfully");
-            } catch (SQLException e) {
-                logger.error("Failed to close database connection", e);
+    public UUID getUuid(String username) throws Exception {
+        UUID cached = getCachedUuid(username);
+        if (cached != null) {
+            return cached;
+        }
+        if (!isKnownUsername(username)) {
+            return null;
+        }
+        return loadUuid(username);
+    }
+
+    /**
+     * Look up a mapping in memory only. Never touches storage.
+     */
+    public UUID getCachedUuid(String username) {
+        String key = username.toLowerCase();
+        UUID uuid = cache.get(key);
+        if (uuid == null) {
+            PreloadedUuidIndex index = preloadedIndex;
+            if (index != null && (uuid = index.get(key)) != null) {
+                preloadedHits.increment();
             }
         }
+        return uuid;
+    }
+
+    /**
+     * Check whether a username may have a stored mapping. A {@code false} answer is
+     * definite; names the Bloom filter has never seen cannot be in storage.
+     */
+    public boolean isKnownUsername(String username) {
+        UsernameBloomFilter filter = bloomFilter;
+        if (filter != null && !filter.mightContain(username.toLowerCase())) {
+            bloomRejections.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Read a mapping from storage, bypassing the cache lookup, and cache the result.
+     * This is the blocking part of {@link #getUuid} and should not run on an event thread.
+     */
+    public UUID loadUuid(String username) throws Exception {
+        String key = username.toLowerCase();
+        long start = System.nanoTime();
+        UUID uuid = store.get(key);
+        lookupLatency.recordSince(start);
+        if (uuid != null) {
+            cache.put(key, uuid);
+        }
+        return uuid;
+    }
+
+    /**
+     * Usernames currently mapped to a UUID (lowercased). Blocking; indexed on SQLite,
+     * a full scan on engines without a reverse index.
+     */
+    public List<String> getUsernames(UUID uuid) throws Exception {
+        return store.getUsernames(uuid);
+    }
+
+    /**
+     * Every recorded change that pointed a username at this UUID, oldest first. Blocking.
+     */
+    public List<NameChange> getNameHistory(UUID uuid) throws Exception {
+        return store.getNameHistory(uuid);
+    }
+
+    public UuidStore getStore() {
+        return store;
+    }
+
+    public UuidCache getCache() {
+        return cache;
+    }
+
+    public LatencyHistogram getLookupLatency() {
+        return lookupLatency;
+    }
+
+    public LatencyHistogram getStoreLatency() {
+        return storeLatency;
+    }
+
+    public long getBloomRejections() {
+        return bloomRejections.sum();
+    }
+
+    public long getSkippedWrites() {
+        return skippedWrites.sum();
+    }
+
+    public int getPendingTouches() {
+        return pendingTouches.size();
+    }
+
+    public long getPreloadedHits() {
+        return preloadedHits.sum();
+    }
+
+    public int getPreloadedSize() {
+        PreloadedUuidIndex index = preloadedIndex;
+        return index != null ? index.size() : 0;
+    }
+
+    public void close() {
+        logger.info("UUID cache stats: {}, bloom filter rejections={}", cache, getBloomRejections());
+        store.close();
     }
 }
@@ -0,0 +1,112 @@
+package de.craftingworld.velocityuuidsync;
+
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.command.SimpleCommand;
+import de.craftingworld.velocityuuidsync.metrics.MetricsReporter;
+import de.craftingworld.velocityuuidsync.storage.NameChange;
+import net.kyori.adventure.text.Component;
+
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * {@code /uuidsync} admin command.
+ */
+public class UuidSyncCommand implements SimpleCommand {
+
+    public static final String PERMISSION = "velocityuuidsync.admin";
+
+    private static final DateTimeFormatter HISTORY_TIME =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss 'UTC'").withZone(ZoneOffset.UTC);
+
+    private final MetricsReporter metricsReporter;
+    private final UuidStorageManager storageManager;
+    private final Executor storageExecutor;
+
+    public UuidSyncCommand(MetricsReporter metricsReporter, UuidStorageManager storageManager, Executor storageExecutor) {
+        this.metricsReporter = metricsReporter;
+        this.storageManager = storageManager;
+        this.storageExecutor = storageExecutor;
+    }
+
+    @Override
+    public void execute(Invocation invocation) {
+        CommandSource source = invocation.source();
+        String[] args = invocation.arguments();
+        
+        if (args.length == 0 || args[0].equalsIgnoreCase("stats")) {
+            source.sendMessage(Component.text("Velocity UUID Sync stats:"));
+            for (String line : metricsReporter.summaryLines()) {
+                source.sendMessage(Component.text("  " + line));
+            }
+            return;
+        }
+        
+        if (args[0].equalsIgnoreCase("lookup") && args.length == 2) {
+            // Storage queries block, so they run on the storage pool and reply from there
+            String query = args[1];
+            CompletableFuture.runAsync(() -> lookup(source, query), storageExecutor);
+            return;
+        }
+        
+        source.sendMessage(Component.text("Usage: /" + invocation.alias() + " stats | lookup <username|uuid>"));
+    }
+
+    private void lookup(CommandSource source, String query) {
+        try {
+            UUID uuid = parseUuid(query);
+            if (uuid == null) {
+                uuid = storageManager.getUuid(query);
+                if (uuid == null) {
+                    source.sendMessage(Component.text("No UUID stored for " + query));
+                    return;
+                }
+                source.sendMessage(Component.text(query + " -> " + uuid));
+            }
+            
+            List<String> usernames = storageManager.getUsernames(uuid);
+            source.sendMessage(Component.text("Names currently mapped to " + uuid + ": "
+                    + (usernames.isEmpty() ? "none" : String.join(", ", usernames))));
+            
+            List<NameChange> history = storageManager.getNameHistory(uuid);
+            if (!history.isEmpty()) {
+                source.sendMessage(Component.text("Name history:"));
+                for (NameChange change : history) {
+                    source.sendMessage(Component.text("  " + HISTORY_TIME.format(change.changedAt()) + "  " + change.username()));
+                }
+            }
+        } catch (Exception e) {
+            source.sendMessage(Component.text("Lookup failed: " + e.getMessage()));
+        }
+    }
+
+    private static UUID parseUuid(String value) {
+        // Player names are at most 16 characters, UUIDs at least 32
+        if (value.length() < 32) {
+            return null;
+        }
+        try {
+            if (value.length() == 32) {
+                return new UUID(Long.parseUnsignedLong(value.substring(0, 16), 16),
+                        Long.parseUnsignedLong(value.substring(16), 16));
+            }
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public List<String> suggest(Invocation invocation) {
+        return invocation.arguments().length <= 1 ? List.of("stats", "lookup") : List.of();
+    }
+
+    @Override
+    public boolean hasPermission(Invocation invocation) {
+        return invocation.source().hasPermission(PERMISSION);
+    }
+}
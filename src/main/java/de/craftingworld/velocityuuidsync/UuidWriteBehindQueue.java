@@ -0,0 +1,151 @@
+package de.craftingworld.velocityuuidsync;
+
+import de.craftingworld.velocityuuidsync.metrics.LatencyHistogram;
+import de.craftingworld.velocityuuidsync.storage.UuidMapping;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind pipeline for UUID mappings.
+ * Logins enqueue mappings and return immediately; a dedicated writer thread
+ * groups them into batches that are committed in a single transaction.
+ */
+public class UuidWriteBehindQueue {
+
+    private final UuidStorageManager storageManager;
+    private final Logger logger;
+    private final BlockingQueue<UuidMapping> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Thread writerThread;
+    private final LatencyHistogram batchLatency = new LatencyHistogram();
+    private final LongAdder failedWrites = new LongAdder();
+    private volatile boolean running;
+
+    public UuidWriteBehindQueue(UuidStorageManager storageManager, Logger logger,
+                                int capacity, int batchSize, long flushIntervalMillis) {
+        this.storageManager = storageManager;
+        this.logger = logger;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        this.writerThread = new Thread(this::run, "velocity-uuid-sync-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        writerThread.start();
+    }
+
+    /**
+     * Queue a mapping for persistence without blocking.
+     * Returns {@code false} if the queue is full or stopped; the caller must then
+     * write the mapping itself so that no login is ever dropped.
+     */
+    public boolean offer(String username, UUID uuid) {
+        if (!running) {
+            return false;
+        }
+
+        // Make the mapping visible to lookups before it reaches the database; primed before
+        // enqueueing so the writer cannot persist it first and leave it marked unflushed
+        UuidMapping mapping = new UuidMapping(username, uuid);
+        storageManager.primeUnflushedMapping(username.toLowerCase(), uuid);
+        if (!queue.offer(mapping)) {
+            storageManager.forgetPrimedMappings(List.of(mapping));
+            return false;
+        }
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public LatencyHistogram getBatchLatency() {
+        return batchLatency;
+    }
+
+    public long getFailedWrites() {
+        return failedWrites.sum();
+    }
+
+    /**
+     * Stop the writer thread and flush everything that is still pending.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Drain whatever the writer did not get to
+        List<UuidMapping> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    private void run() {
+        List<UuidMapping> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                UuidMapping first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Keep collecting until the batch is full or the flush interval elapsed
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    UuidMapping next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<UuidMapping> batch) {
+        long start = System.nanoTime();
+        try {
+            storageManager.storeUuidMappings(batch);
+            batchLatency.recordSince(start);
+        } catch (Exception e) {
+            failedWrites.add(batch.size());
+            logger.error("Failed to persist batch of {} UUID mappings", batch.size(), e);
+            // They were primed on enqueue; without this, lookups and the skip check would keep
+            // trusting mappings that storage never received
+            storageManager.forgetPrimedMappings(batch);
+        }
+    }
+}
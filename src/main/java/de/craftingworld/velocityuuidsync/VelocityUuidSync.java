@@ -1,6 +1,9 @@
 package de.craftingworld.velocityuuidsync;
 
 import com.google.inject.Inject;
+import com.velocitypowered.api.command.CommandMeta;
+import de.craftingworld.velocityuuidsync.storage.UuidStore;
+import com.velocitypowered.api.event.EventTask;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.connection.LoginEvent;
 import com.velocitypowered.api.event.player.GameProfileRequestEvent;
@@ -9,10 +12,19 @@ import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
 import com.velocitypowered.api.plugin.Plugin;
 import com.velocitypowered.api.plugin.annotation.DataDirectory;
 import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import de.craftingworld.velocityuuidsync.metrics.HandlerMetrics;
+import de.craftingworld.velocityuuidsync.metrics.MetricsReporter;
+import de.craftingworld.velocityuuidsync.replication.MappingReplicator;
 import org.slf4j.Logger;
 
 import java.nio.file.Path;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Plugin(
         id = "velocity-uuid-sync",
@@ -27,6 +39,16 @@ public class VelocityUuidSync {
     private final Logger logger;
     private final Path dataDirectory;
     private UuidStorageManager storageManager;
+    private UuidWriteBehindQueue writeQueue;
+    private ExecutorService storageExecutor;
+    private UuidLookupService lookupService;
+    private final HandlerMetrics handlerMetrics = new HandlerMetrics();
+    private MetricsReporter metricsReporter;
+    private ScheduledTask metricsExportTask;
+    private ScheduledTask touchFlushTask;
+    private ScheduledTask snapshotTask;
+    private Path snapshotFile;
+    private MappingReplicator replicator;
     private ConfigManager configManager;
 
     @Inject
@@ -46,8 +68,89 @@ public class VelocityUuidSync {
             configManager.loadConfig();
             
             // Initialize storage manager
-            storageManager = new UuidStorageManager(dataDirectory, logger);
-            storageManager.initialize();
+            UuidStore store = configManager.getStorageEngine().create(dataDirectory, logger, configManager.getSqliteOptions());
+            storageManager = new UuidStorageManager(store, logger, configManager.getCacheSize(),
+                    configManager.getCacheEvictionPolicy(), configManager.getBloomFilterFpp());
+            // A snapshot from the last run restores the index right away; otherwise warm up as usual
+            int snapshotMinutes = configManager.getSnapshotIntervalMinutes();
+            snapshotFile = snapshotMinutes > 0 ? dataDirectory.resolve(MappingSnapshot.FILE_NAME) : null;
+            boolean restored = storageManager.initialize(snapshotFile);
+            if (!storageManager.supportsSnapshots()) {
+                snapshotFile = null;
+            }
+            if (!restored && configManager.isWarmupEnabled()) {
+                // Lookups fall back to the cache and storage until the index is ready
+                int warmupThreads = configManager.getWarmupThreads();
+                Thread warmup = new Thread(() -> {
+                    try {
+                        storageManager.warmUp(warmupThreads);
+                    } catch (Exception e) {
+                        logger.error("UUID index warm-up failed, continuing without it", e);
+                    }
+                }, "velocity-uuid-sync-warmup");
+                warmup.setDaemon(true);
+                warmup.start();
+            }
+            
+            // Exchange mappings with other proxies through a shared directory
+            if (!configManager.getReplicationDirectory().isEmpty()) {
+                String proxyId = MappingReplicator.resolveProxyId(configManager.getReplicationProxyId(), dataDirectory);
+                replicator = new MappingReplicator(storageManager, logger,
+                        dataDirectory.resolve(configManager.getReplicationDirectory()), proxyId,
+                        configManager.getReplicationPollIntervalMs());
+                storageManager.setWriteListener(replicator);
+                replicator.start();
+            }
+            
+            // Start the write-behind pipeline for login upserts
+            writeQueue = new UuidWriteBehindQueue(storageManager, logger,
+                    configManager.getWriteQueueCapacity(),
+                    configManager.getWriteBatchSize(),
+                    configManager.getWriteFlushIntervalMs());
+            writeQueue.start();
+            
+            // Blocking storage work runs here so it never stalls Velocity's event executor
+            AtomicInteger threadId = new AtomicInteger();
+            storageExecutor = Executors.newFixedThreadPool(configManager.getStorageThreads(), runnable -> {
+                Thread thread = new Thread(runnable, "velocity-uuid-sync-storage-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            lookupService = new UuidLookupService(storageManager, storageExecutor,
+                    configManager.getMaxInflightLookups(), configManager.getLookupTimeoutMs());
+            
+            // Metrics: /uuidsync stats and a periodically written Prometheus text file
+            metricsReporter = new MetricsReporter(storageManager, writeQueue, lookupService, handlerMetrics, replicator);
+            CommandMeta commandMeta = server.getCommandManager().metaBuilder("uuidsync").plugin(this).build();
+            server.getCommandManager().register(commandMeta, new UuidSyncCommand(metricsReporter, storageManager, storageExecutor));
+            if (configManager.getMetricsExportIntervalSeconds() > 0) {
+                Path metricsFile = dataDirectory.resolve("metrics.prom");
+                metricsExportTask = server.getScheduler().buildTask(this, () -> {
+                    try {
+                        metricsReporter.writePrometheusFile(metricsFile);
+                    } catch (Exception e) {
+                        logger.warn("Failed to write metrics to {}: {}", metricsFile, e.getMessage());
+                    }
+                }).repeat(configManager.getMetricsExportIntervalSeconds(), TimeUnit.SECONDS).schedule();
+            }
+            
+            // Unchanged logins skip the write; their last_updated is refreshed in one batch per interval
+            int touchMinutes = configManager.getLastUpdatedGranularityMinutes();
+            if (touchMinutes > 0) {
+                touchFlushTask = server.getScheduler().buildTask(this, this::flushTouches)
+                        .repeat(touchMinutes, TimeUnit.MINUTES).schedule();
+            }
+            if (snapshotFile != null) {
+                snapshotTask = server.getScheduler().buildTask(this, this::writeSnapshot)
+                        .delay(snapshotMinutes, TimeUnit.MINUTES)
+                        .repeat(snapshotMinutes, TimeUnit.MINUTES).schedule();
+            }
+            
+            // Pick up config.properties edits without a restart
+            configManager.startWatching(logger, settings -> {
+                lookupService.setTimeoutMillis(settings.getLookupTimeoutMs());
+                logger.info("Monitoring offline-mode servers: " + settings.getOfflineModeServers());
+            });
             
             logger.info("Velocity UUID Sync plugin initialized successfully!");
             logger.info("Monitoring offline-mode servers: " + configManager.getOfflineModeServers());
@@ -59,58 +162,170 @@ public class VelocityUuidSync {
     @Subscribe
     public void onProxyShutdown(ProxyShutdownEvent event) {
         logger.info("Shutting down Velocity UUID Sync plugin...");
+        if (configManager != null) {
+            configManager.stopWatching();
+        }
+        if (metricsExportTask != null) {
+            metricsExportTask.cancel();
+        }
+        if (touchFlushTask != null) {
+            touchFlushTask.cancel();
+        }
+        if (snapshotTask != null) {
+            snapshotTask.cancel();
+        }
+        if (storageExecutor != null) {
+            storageExecutor.shutdown();
+            try {
+                storageExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (lookupService != null) {
+            logger.info("UUID lookup stats: timeouts={}, shed={}", lookupService.getTimeouts(), lookupService.getShed());
+        }
+        if (writeQueue != null) {
+            writeQueue.shutdown();
+        }
+        if (replicator != null) {
+            replicator.stop();
+        }
         if (storageManager != null) {
+            flushTouches();
+            if (snapshotFile != null) {
+                // Everything is persisted by now, so the next start has next to nothing to replay
+                writeSnapshot();
+            }
             storageManager.close();
         }
     }
 
+    private void writeSnapshot() {
+        try {
+            storageManager.writeSnapshot(snapshotFile);
+        } catch (Exception e) {
+            logger.warn("Failed to write UUID snapshot to {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    private void flushTouches() {
+        try {
+            storageManager.flushTouches();
+        } catch (Exception e) {
+            logger.warn("Failed to refresh last_updated for returning players: {}", e.getMessage());
+        }
+    }
+
     @Subscribe
-    public void onLogin(LoginEvent event) {
+    public EventTask onLogin(LoginEvent event) {
         // Store the player's authentic Mojang UUID when they login
+        long start = System.nanoTime();
         String username = event.getPlayer().getUsername();
-        String uuid = event.getPlayer().getUniqueId().toString();
+        UUID uuid = event.getPlayer().getUniqueId();
+        
+        // Initialization failed; the error was logged then, and logins must still go through
+        if (writeQueue == null || storageExecutor == null) {
+            return null;
+        }
+        
+        boolean debug = configManager.getSettings().isDebugEnabled();
         
         try {
-            storageManager.storeUuidMapping(username, uuid);
-            if (configManager.isDebugEnabled()) {
-                logger.info("Stored UUID mapping: {} -> {}", username, uuid);
+            // Reconnects almost never change the mapping, so they do not need a write
+            if (touchFlushTask != null && storageManager.skipUnchangedMapping(username, uuid)) {
+                handlerMetrics.getLoginLatency().recordSince(start);
+                return null;
+            }
+            
+            if (writeQueue.offer(username, uuid)) {
+                if (debug) {
+                    logger.info("Queued UUID mapping: {} -> {}", username, uuid);
+                }
+                handlerMetrics.getLoginLatency().recordSince(start);
+                return null;
             }
         } catch (Exception e) {
+            handlerMetrics.recordError();
             logger.error("Failed to store UUID mapping for player " + username, e);
+            return null;
         }
+        
+        // Queue is full: write synchronously, but on the storage executor
+        return EventTask.resumeWhenComplete(CompletableFuture.runAsync(() -> {
+            try {
+                storageManager.storeUuidMapping(username, uuid);
+                if (debug) {
+                    logger.info("Stored UUID mapping: {} -> {}", username, uuid);
+                }
+            } catch (Exception e) {
+                handlerMetrics.recordError();
+                logger.error("Failed to store UUID mapping for player " + username, e);
+            } finally {
+                handlerMetrics.getLoginLatency().recordSince(start);
+            }
+        }, storageExecutor));
     }
 
     @Subscribe
-    public void onGameProfileRequest(GameProfileRequestEvent event) {
+    public EventTask onGameProfileRequest(GameProfileRequestEvent event) {
         // This event allows us to modify the game profile before it's sent to the backend server
+        long start = System.nanoTime();
         String username = event.getUsername();
         
+        // Initialization failed; leave the profile as Velocity built it
+        if (lookupService == null) {
+            return null;
+        }
+        
         try {
-            String storedUuid = storageManager.getUuid(username);
-            
-            if (storedUuid != null) {
-                try {
-                    // Convert string UUID to UUID object
-                    UUID uuid = UUID.fromString(storedUuid);
-                    
-                    // Create a new GameProfile with the stored Mojang UUID
-                    com.velocitypowered.api.util.GameProfile newProfile = 
-                        event.getGameProfile().withId(uuid);
-                    
-                    // Apply the modified profile
-                    event.setGameProfile(newProfile);
-                    
-                    if (configManager.isDebugEnabled()) {
-                        logger.info("Applied stored UUID {} for player {}", storedUuid, username);
-                    }
-                } catch (IllegalArgumentException e) {
-                    logger.error("Failed to parse stored UUID '{}' for player {}: {}", storedUuid, username, e.getMessage());
-                }
-            } else if (configManager.isDebugEnabled()) {
-                logger.info("No stored UUID found for player {}, using default", username);
+            // Cache hits and definitely-unknown names are answered without leaving the event thread
+            UUID cachedUuid = storageManager.getCachedUuid(username);
+            if (cachedUuid != null) {
+                applyStoredUuid(event, cachedUuid);
+                handlerMetrics.getGameProfileRequestLatency().recordSince(start);
+                return null;
+            }
+            if (!storageManager.isKnownUsername(username)) {
+                applyStoredUuid(event, null);
+                handlerMetrics.getGameProfileRequestLatency().recordSince(start);
+                return null;
             }
         } catch (Exception e) {
+            handlerMetrics.recordError();
             logger.error("Failed to retrieve UUID for player " + username, e);
+            return null;
+        }
+        
+        // Everything else needs storage; resume the event once the lookup completes or times out
+        return EventTask.resumeWhenComplete(lookupService.lookup(username).handle((storedUuid, cause) -> {
+            if (cause != null) {
+                handlerMetrics.recordError();
+                logger.error("Failed to retrieve UUID for player " + username, cause);
+            } else {
+                applyStoredUuid(event, storedUuid);
+            }
+            handlerMetrics.getGameProfileRequestLatency().recordSince(start);
+            return null;
+        }));
+    }
+
+    private void applyStoredUuid(GameProfileRequestEvent event, UUID storedUuid) {
+        String username = event.getUsername();
+        boolean debug = configManager.getSettings().isDebugEnabled();
+        if (storedUuid != null) {
+            // Create a new GameProfile with the stored Mojang UUID
+            com.velocitypowered.api.util.GameProfile newProfile = 
+                event.getGameProfile().withId(storedUuid);
+            
+            // Apply the modified profile
+            event.setGameProfile(newProfile);
+            
+            if (debug) {
+                logger.info("Applied stored UUID {} for player {}", storedUuid, username);
+            }
+        } else if (debug) {
+            logger.info("No stored UUID found for player {}, using default", username);
         }
     }
 }
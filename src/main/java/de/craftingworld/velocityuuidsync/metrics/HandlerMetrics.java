@@ -0,0 +1,29 @@
+package de.craftingworld.velocityuuidsync.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and error counts for the plugin's event handlers.
+ */
+public class HandlerMetrics {
+
+    private final LatencyHistogram loginLatency = new LatencyHistogram();
+    private final LatencyHistogram gameProfileRequestLatency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    public LatencyHistogram getLoginLatency() {
+        return loginLatency;
+    }
+
+    public LatencyHistogram getGameProfileRequestLatency() {
+        return gameProfileRequestLatency;
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+}
@@ -0,0 +1,153 @@
+package de.craftingworld.velocityuuidsync.metrics;
+
+import de.craftingworld.velocityuuidsync.UuidCache;
+import de.craftingworld.velocityuuidsync.UuidLookupService;
+import de.craftingworld.velocityuuidsync.UuidStorageManager;
+import de.craftingworld.velocityuuidsync.UuidWriteBehindQueue;
+import de.craftingworld.velocityuuidsync.replication.MappingReplicator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders the plugin's metrics as Prometheus text format and as a short
+ * human-readable summary for the proxy command.
+ */
+public class MetricsReporter {
+
+    private static final String PREFIX = "velocity_uuid_sync_";
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final UuidStorageManager storageManager;
+    private final UuidWriteBehindQueue writeQueue;
+    private final UuidLookupService lookupService;
+    private final HandlerMetrics handlerMetrics;
+    private final MappingReplicator replicator;
+
+    public MetricsReporter(UuidStorageManager storageManager, UuidWriteBehindQueue writeQueue,
+                           UuidLookupService lookupService, HandlerMetrics handlerMetrics) {
+        this(storageManager, writeQueue, lookupService, handlerMetrics, null);
+    }
+
+    public MetricsReporter(UuidStorageManager storageManager, UuidWriteBehindQueue writeQueue,
+                           UuidLookupService lookupService, HandlerMetrics handlerMetrics,
+                           MappingReplicator replicator) {
+        this.storageManager = storageManager;
+        this.writeQueue = writeQueue;
+        this.lookupService = lookupService;
+        this.handlerMetrics = handlerMetrics;
+        this.replicator = replicator;
+    }
+
+    private Map<String, LatencyHistogram> histograms() {
+        Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+        histograms.put("login_handler", handlerMetrics.getLoginLatency());
+        histograms.put("game_profile_request_handler", handlerMetrics.getGameProfileRequestLatency());
+        histograms.put("storage_lookup", storageManager.getLookupLatency());
+        histograms.put("storage_store", storageManager.getStoreLatency());
+        histograms.put("storage_store_batch", writeQueue.getBatchLatency());
+        return histograms;
+    }
+
+    private Map<String, Long> counters() {
+        UuidCache cache = storageManager.getCache();
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("cache_hits_total", cache.getHits());
+        counters.put("cache_misses_total", cache.getMisses());
+        counters.put("cache_evictions_total", cache.getEvictions());
+        counters.put("bloom_filter_rejections_total", storageManager.getBloomRejections());
+        counters.put("preloaded_hits_total", storageManager.getPreloadedHits());
+        counters.put("unchanged_writes_skipped_total", storageManager.getSkippedWrites());
+        counters.put("lookup_timeouts_total", lookupService.getTimeouts());
+        counters.put("lookups_shed_total", lookupService.getShed());
+        counters.put("write_failures_total", writeQueue.getFailedWrites());
+        counters.put("handler_errors_total", handlerMetrics.getErrors());
+        if (replicator != null) {
+            counters.put("replication_published_total", replicator.getPublished());
+            counters.put("replication_applied_total", replicator.getApplied());
+            counters.put("replication_superseded_total", replicator.getSuperseded());
+        }
+        return counters;
+    }
+
+    private Map<String, Long> gauges() {
+        Map<String, Long> gauges = new LinkedHashMap<>();
+        gauges.put("cache_size", (long) storageManager.getCache().size());
+        gauges.put("preloaded_mappings", (long) storageManager.getPreloadedSize());
+        gauges.put("write_queue_depth", (long) writeQueue.getQueueDepth());
+        gauges.put("pending_touches", (long) storageManager.getPendingTouches());
+        gauges.put("lookups_in_flight", (long) lookupService.getInFlight());
+        return gauges;
+    }
+
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, LatencyHistogram> entry : histograms().entrySet()) {
+            String name = PREFIX + entry.getKey() + "_seconds";
+            LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot();
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (double quantile : QUANTILES) {
+                out.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(snapshot.getValueAtQuantile(quantile))).append('\n');
+            }
+            out.append(name).append("_sum ").append(seconds(snapshot.getSum())).append('\n');
+            out.append(name).append("_count ").append(snapshot.getCount()).append('\n');
+        }
+        for (Map.Entry<String, Long> entry : counters().entrySet()) {
+            out.append("# TYPE ").append(PREFIX).append(entry.getKey()).append(" counter\n");
+            out.append(PREFIX).append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        for (Map.Entry<String, Long> entry : gauges().entrySet()) {
+            out.append("# TYPE ").append(PREFIX).append(entry.getKey()).append(" gauge\n");
+            out.append(PREFIX).append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Write the Prometheus text to {@code file} atomically, for node_exporter's textfile collector.
+     */
+    public void writePrometheusFile(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, toPrometheus(), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public List<String> summaryLines() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms().entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot();
+            lines.add(String.format(Locale.ROOT, "%s: n=%d p50=%s p99=%s p999=%s max=%s",
+                    entry.getKey(), snapshot.getCount(),
+                    millis(snapshot.getValueAtQuantile(0.5)),
+                    millis(snapshot.getValueAtQuantile(0.99)),
+                    millis(snapshot.getValueAtQuantile(0.999)),
+                    millis(snapshot.getMax())));
+        }
+        StringBuilder counters = new StringBuilder();
+        counters().forEach((name, value) -> counters.append(counters.isEmpty() ? "" : ", ")
+                .append(name.replace("_total", "")).append('=').append(value));
+        lines.add(counters.toString());
+        StringBuilder gauges = new StringBuilder();
+        gauges().forEach((name, value) -> gauges.append(gauges.isEmpty() ? "" : ", ")
+                .append(name).append('=').append(value));
+        lines.add(gauges.toString());
+        return lines;
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3fms", nanos / 1e6);
+    }
+}
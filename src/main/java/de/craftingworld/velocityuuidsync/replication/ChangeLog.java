@@ -0,0 +1,108 @@
+package de.craftingworld.velocityuuidsync.replication;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Binary format of the per-proxy change logs in the replication directory.
+ *
+ * <p>A log starts with {@link #HEADER} and is followed by records of
+ * {@code [name length:1][timestamp:8][msb:8][lsb:8][name:n][crc32:4]}, about 45 bytes for a
+ * typical username. The CRC covers everything before it, so a reader that sees a record only
+ * partly written (or not yet visible on a network filesystem) stops there and retries later.
+ * A damaged record is skipped with {@link #skipDamaged} once a valid one is found after it.</p>
+ */
+public final class ChangeLog {
+
+    static final String FILE_SUFFIX = ".changelog";
+    static final byte[] HEADER = {'V', 'U', 'S', 'C', 1};
+    static final int MAX_NAME_BYTES = 255;
+
+    private static final int FIXED_BYTES = 1 + 8 + 8 + 8 + 4;
+    static final int MAX_RECORD_BYTES = FIXED_BYTES + MAX_NAME_BYTES;
+
+    private ChangeLog() {
+    }
+
+    /**
+     * One mapping write as recorded by the proxy that made it.
+     */
+    public record Entry(String username, UUID uuid, long timestamp) {
+
+        /**
+         * Last writer wins; equal timestamps are broken by UUID so every proxy picks the same winner.
+         */
+        boolean isNewerThan(Entry other) {
+            return other == null || timestamp > other.timestamp
+                    || (timestamp == other.timestamp && uuid.compareTo(other.uuid) > 0);
+        }
+    }
+
+    static int encodedSize(Entry entry) {
+        return FIXED_BYTES + entry.username().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    static void encode(Entry entry, ByteBuffer out) {
+        byte[] name = entry.username().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Username too long for the change log: " + entry.username());
+        }
+        int start = out.position();
+        out.put((byte) name.length);
+        out.putLong(entry.timestamp());
+        out.putLong(entry.uuid().getMostSignificantBits());
+        out.putLong(entry.uuid().getLeastSignificantBits());
+        out.put(name);
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), out.arrayOffset() + start, out.position() - start);
+        out.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Decode the record at the buffer's position and advance past it, or return {@code null}
+     * and leave the position unchanged if the record is incomplete or fails its checksum.
+     */
+    static Entry decode(ByteBuffer in) {
+        int start = in.position();
+        if (in.remaining() < FIXED_BYTES) {
+            return null;
+        }
+        int nameLength = in.get(start) & 0xFF;
+        if (in.remaining() < FIXED_BYTES + nameLength) {
+            return null;
+        }
+
+        int bodyLength = FIXED_BYTES - 4 + nameLength;
+        CRC32 crc = new CRC32();
+        crc.update(in.array(), in.arrayOffset() + start, bodyLength);
+        if (in.getInt(start + bodyLength) != (int) crc.getValue()) {
+            return null;
+        }
+
+        long timestamp = in.getLong(start + 1);
+        UUID uuid = new UUID(in.getLong(start + 9), in.getLong(start + 17));
+        String username = new String(in.array(), in.arrayOffset() + start + 25, nameLength, StandardCharsets.UTF_8);
+        in.position(start + bodyLength + 4);
+        return new Entry(username, uuid, timestamp);
+    }
+
+    /**
+     * For a record at the buffer's position that {@link #decode} rejects, the number of bytes up
+     * to the next record that decodes, or past everything that cannot start a record any more
+     * when none does. Zero if nothing can be skipped yet; the position is never changed.
+     */
+    static int skipDamaged(ByteBuffer in) {
+        int start = in.position();
+        ByteBuffer probe = in.duplicate();
+        for (int candidate = start + 1; candidate <= in.limit() - FIXED_BYTES; candidate++) {
+            probe.position(candidate);
+            if (decode(probe) != null) {
+                return candidate - start;
+            }
+        }
+        // Any record starting at least MAX_RECORD_BYTES before the end was complete and did not decode
+        return Math.max(0, in.remaining() - MAX_RECORD_BYTES + 1);
+    }
+}
@@ -0,0 +1,548 @@
+package de.craftingworld.velocityuuidsync.replication;
+
+import de.craftingworld.velocityuuidsync.UuidStorageManager;
+import de.craftingworld.velocityuuidsync.storage.UuidMapping;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the UUID mappings of several proxies in sync through a shared directory, without any network service.
+ *
+ * <p>Every proxy appends the mappings it persists to its own {@code <proxy-id>.changelog} in the
+ * directory and tails all logs from the offset it last read. Conflicts are resolved last writer wins
+ * by the timestamp recorded in the logs; winners that differ from local storage are written in
+ * batches, everything else costs a read.</p>
+ *
+ * <p>The newest entry per username is kept in memory for {@link #SETTLED_AFTER_MILLIS} only. An older
+ * entry that shows up later, e.g. from a proxy that was offline, may have lost to a pruned one and
+ * therefore only fills in usernames that storage does not know yet. Read offsets and the remembered
+ * entries are kept in {@code <proxy-id>.state} next to the log, so a restart carries on where it
+ * stopped instead of reading every log again.</p>
+ */
+public class MappingReplicator implements UuidStorageManager.WriteListener {
+
+    static final long SETTLED_AFTER_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final int APPLY_BATCH_SIZE = 1000;
+    private static final int READ_CHUNK_BYTES = 1 << 20;
+    private static final long IGNORED = -1;
+    private static final int MAX_UNWRITTEN_ENTRIES = 100_000;
+    private static final long STATE_SAVE_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final byte[] STATE_HEADER = {'V', 'U', 'S', 'R', 1};
+    private static final String STATE_SUFFIX = ".state";
+
+    private final UuidStorageManager storageManager;
+    private final Logger logger;
+    private final Path directory;
+    private final String proxyId;
+    private final Path ownLog;
+    private final Path stateFile;
+    private final long pollIntervalMillis;
+
+    // Newest entry per username among those written in the last SETTLED_AFTER_MILLIS, including this proxy's own
+    private final Map<String, ChangeLog.Entry> latest = new ConcurrentHashMap<>();
+    // Every entry dropped from latest is older than this
+    private long prunedBefore;
+    // Read positions and where a damaged record was last seen, per log file name; only touched by the tail thread
+    private final Map<String, Long> offsets = new HashMap<>();
+    private final Map<String, Long> damagedAt = new HashMap<>();
+    private boolean stateChanged;
+    private long lastStateSave;
+
+    // Encoded records persisted but not yet appended to the own log, oldest first; guarded by this
+    private final Deque<Append> unwritten = new ArrayDeque<>();
+    private int unwrittenEntries;
+    private long lastTimestamp;
+    // Held while appending and forcing, so those never run under the storage manager's write lock
+    private final Object appendLock = new Object();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+
+    private volatile FileChannel output;
+    private Thread tailThread;
+    private volatile boolean running;
+
+    private record Append(ByteBuffer records, int entries) {
+    }
+
+    public MappingReplicator(UuidStorageManager storageManager, Logger logger, Path directory,
+                             String proxyId, long pollIntervalMillis) {
+        this.storageManager = storageManager;
+        this.logger = logger;
+        this.directory = directory;
+        this.proxyId = proxyId;
+        this.ownLog = directory.resolve(proxyId + ChangeLog.FILE_SUFFIX);
+        this.stateFile = directory.resolve(proxyId + STATE_SUFFIX);
+        this.pollIntervalMillis = Math.max(10, pollIntervalMillis);
+    }
+
+    /**
+     * The configured proxy id, or one generated on first use and kept in {@code replication-id}
+     * in the data directory, so each proxy writes to the same log across restarts.
+     */
+    public static String resolveProxyId(String configured, Path dataDirectory) throws IOException {
+        String id = configured.trim();
+        if (id.isEmpty()) {
+            Path idFile = dataDirectory.resolve("replication-id");
+            if (Files.exists(idFile)) {
+                id = Files.readString(idFile).trim();
+            } else {
+                id = UUID.randomUUID().toString();
+                Files.writeString(idFile, id);
+            }
+        }
+        if (!id.matches("[A-Za-z0-9._-]+")) {
+            throw new IllegalArgumentException("replication-proxy-id may only contain letters, digits, '.', '_' and '-': " + id);
+        }
+        return id;
+    }
+
+    public void start() throws IOException {
+        openLog();
+
+        running = true;
+        tailThread = new Thread(this::run, "velocity-uuid-sync-replication");
+        tailThread.setDaemon(true);
+        tailThread.start();
+        logger.info("Replicating UUID mappings through {} as proxy '{}'", directory, proxyId);
+    }
+
+    /**
+     * Load the state saved by the last run and open this proxy's log for appending, writing the
+     * header if it is new. Called by {@link #start()}; on its own it lets {@link #persisted} work
+     * without the tail thread.
+     */
+    void openLog() throws IOException {
+        Files.createDirectories(directory);
+        loadState();
+        FileChannel channel = FileChannel.open(ownLog, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (channel.size() == 0) {
+            channel.write(ByteBuffer.wrap(ChangeLog.HEADER));
+            channel.force(false);
+        }
+        output = channel;
+    }
+
+    /**
+     * Record mappings this proxy has just persisted and queue them for its change log.
+     * Runs under the storage manager's write lock, so nothing here touches the disk.
+     */
+    @Override
+    public synchronized void persisted(List<UuidMapping> mappings) {
+        if (output == null || mappings.isEmpty()) {
+            return;
+        }
+
+        List<ChangeLog.Entry> entries = new ArrayList<>(mappings.size());
+        int size = 0;
+        for (UuidMapping mapping : mappings) {
+            // Strictly increasing, so a later local write of the same username always wins
+            lastTimestamp = Math.max(System.currentTimeMillis(), lastTimestamp + 1);
+            ChangeLog.Entry entry = new ChangeLog.Entry(mapping.username(), mapping.uuid(), lastTimestamp);
+            entries.add(entry);
+            size += ChangeLog.encodedSize(entry);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (ChangeLog.Entry entry : entries) {
+            ChangeLog.encode(entry, buffer);
+            recordIfNewer(entry);
+        }
+        buffer.flip();
+
+        unwritten.addLast(new Append(buffer, entries.size()));
+        unwrittenEntries += entries.size();
+        while (unwrittenEntries > MAX_UNWRITTEN_ENTRIES) {
+            Append dropped = unwritten.removeFirst();
+            unwrittenEntries -= dropped.entries();
+            logger.error("Dropped {} mappings that could not be appended to {}; other proxies will not see them",
+                    dropped.entries(), ownLog);
+        }
+    }
+
+    @Override
+    public void afterPersisted() {
+        flush();
+    }
+
+    /**
+     * Append and force everything {@link #persisted} queued. Records that fail stay queued and are
+     * appended again on the next call; the log is never cut back, since another proxy may already
+     * be reading past that point. Readers skip a torn copy, and a duplicate changes nothing.
+     */
+    void flush() {
+        synchronized (appendLock) {
+            List<Append> appends;
+            synchronized (this) {
+                if (output == null || unwritten.isEmpty()) {
+                    return;
+                }
+                appends = new ArrayList<>(unwritten);
+                unwritten.clear();
+                unwrittenEntries = 0;
+            }
+
+            try {
+                for (Append append : appends) {
+                    ByteBuffer records = append.records().duplicate();
+                    while (records.hasRemaining()) {
+                        output.write(records);
+                    }
+                }
+                output.force(false);
+                for (Append append : appends) {
+                    published.add(append.entries());
+                }
+            } catch (IOException e) {
+                int entries = appends.stream().mapToInt(Append::entries).sum();
+                logger.warn("Failed to append {} mappings to {}, retrying later: {}", entries, ownLog, e.getMessage());
+                synchronized (this) {
+                    // Ahead of anything queued meanwhile, so the log stays in write order
+                    for (int i = appends.size() - 1; i >= 0; i--) {
+                        unwritten.addFirst(appends.get(i));
+                    }
+                    unwrittenEntries += entries;
+                }
+            }
+        }
+    }
+
+    private boolean recordIfNewer(ChangeLog.Entry entry) {
+        boolean[] newer = new boolean[1];
+        latest.compute(entry.username(), (username, current) -> {
+            newer[0] = entry.isNewerThan(current);
+            return newer[0] ? entry : current;
+        });
+        return newer[0];
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                poll();
+            } catch (Exception e) {
+                logger.warn("Failed to read replication logs in {}: {}", directory, e.getMessage());
+            }
+            try {
+                Thread.sleep(pollIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Read whatever was appended to any log since the last poll and apply the winners.
+     */
+    void poll() throws Exception {
+        // Retry records a failed append left queued
+        flush();
+
+        Map<String, Long> offsetsBefore = new HashMap<>(offsets);
+        // Winners from other proxies, deduplicated per username; applied only after all logs
+        // are read so that a newer entry in a later log can still replace an earlier one
+        Map<String, ChangeLog.Entry> pending = new LinkedHashMap<>();
+        try (DirectoryStream<Path> logs = Files.newDirectoryStream(directory, "*" + ChangeLog.FILE_SUFFIX)) {
+            for (Path log : logs) {
+                tail(log, log.equals(ownLog), pending);
+            }
+        }
+
+        try {
+            applyAll(pending);
+        } catch (Exception e) {
+            // Read the same records again next time; they still match latest and are pending again
+            offsets.clear();
+            offsets.putAll(offsetsBefore);
+            throw e;
+        }
+        stateChanged |= !offsets.equals(offsetsBefore);
+
+        long horizon = System.currentTimeMillis() - SETTLED_AFTER_MILLIS;
+        if (latest.values().removeIf(entry -> entry.timestamp() < horizon)) {
+            prunedBefore = Math.max(prunedBefore, horizon);
+            stateChanged = true;
+        }
+        if (stateChanged && System.currentTimeMillis() - lastStateSave >= STATE_SAVE_INTERVAL_MILLIS) {
+            saveState();
+        }
+    }
+
+    private void applyAll(Map<String, ChangeLog.Entry> pending) throws Exception {
+        List<UuidMapping> recent = new ArrayList<>(Math.min(pending.size(), APPLY_BATCH_SIZE));
+        List<UuidMapping> settled = new ArrayList<>();
+        for (ChangeLog.Entry winner : pending.values()) {
+            boolean old = winner.timestamp() < prunedBefore;
+            List<UuidMapping> batch = old ? settled : recent;
+            batch.add(new UuidMapping(winner.username(), winner.uuid()));
+            if (batch.size() == APPLY_BATCH_SIZE) {
+                apply(batch, pending, old);
+                batch.clear();
+            }
+        }
+        if (!recent.isEmpty()) {
+            apply(recent, pending, false);
+        }
+        if (!settled.isEmpty()) {
+            apply(settled, pending, true);
+        }
+    }
+
+    /**
+     * Write winners that are still the newest entry for their username. A local login may have
+     * published a newer one since the logs were read; that one is already stored and must stay.
+     * With {@code onlyIfAbsent}, for entries older than anything pruned, only unknown usernames are written.
+     */
+    private void apply(List<UuidMapping> batch, Map<String, ChangeLog.Entry> pending, boolean onlyIfAbsent) throws Exception {
+        applied.add(storageManager.applyReplicated(batch, mapping -> {
+            if (pending.get(mapping.username()).equals(latest.get(mapping.username()))) {
+                return true;
+            }
+            superseded.increment();
+            return false;
+        }, onlyIfAbsent));
+    }
+
+    private void tail(Path log, boolean own, Map<String, ChangeLog.Entry> pending) throws IOException {
+        String name = log.getFileName().toString();
+        long offset = offsets.getOrDefault(name, 0L);
+        if (offset == IGNORED) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            if (offset > channel.size()) {
+                logger.warn("{} is shorter than the {} bytes already read from it; reading it again from the start",
+                        name, offset);
+                offset = 0;
+            }
+            if (offset == 0) {
+                ByteBuffer header = ByteBuffer.allocate(ChangeLog.HEADER.length);
+                if (channel.read(header, 0) < ChangeLog.HEADER.length) {
+                    // Created but header not visible yet
+                    return;
+                }
+                if (!Arrays.equals(header.array(), ChangeLog.HEADER)) {
+                    logger.warn("Ignoring {}: not a UUID change log of a supported version", name);
+                    offsets.put(name, IGNORED);
+                    return;
+                }
+                offset = ChangeLog.HEADER.length;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK_BYTES);
+            while (offset < channel.size()) {
+                buffer.clear();
+                if (channel.read(buffer, offset) <= 0) {
+                    break;
+                }
+                buffer.flip();
+
+                ChangeLog.Entry entry;
+                while ((entry = ChangeLog.decode(buffer)) != null) {
+                    if (recordIfNewer(entry)) {
+                        if (own) {
+                            pending.remove(entry.username());
+                        } else {
+                            pending.put(entry.username(), entry);
+                        }
+                    } else if (!own) {
+                        if (entry.equals(latest.get(entry.username()))) {
+                            // Read again after a failed apply
+                            pending.put(entry.username(), entry);
+                        } else {
+                            superseded.increment();
+                        }
+                    }
+                }
+                if (buffer.position() == 0) {
+                    // Skipped only once a record after it decodes on two polls in a row, since on a
+                    // network filesystem a record may still become visible after later ones
+                    int damaged = ChangeLog.skipDamaged(buffer);
+                    if (damaged == 0 || !Long.valueOf(offset).equals(damagedAt.put(name, offset))) {
+                        break;
+                    }
+                    logger.warn("Skipped {} damaged bytes at offset {} of {}; mappings recorded in them are not replicated",
+                            damaged, offset, name);
+                    damagedAt.remove(name);
+                    offset += damaged;
+                    continue;
+                }
+                offset += buffer.position();
+            }
+        }
+        offsets.put(name, offset);
+    }
+
+    /**
+     * Restore offsets and remembered entries, or start from scratch if there are none or they are damaged.
+     */
+    private void loadState() {
+        if (!Files.exists(stateFile)) {
+            return;
+        }
+        try {
+            if (readState(ByteBuffer.wrap(Files.readAllBytes(stateFile)))) {
+                logger.info("Resuming replication with {} logs and {} recent mappings from {}",
+                        offsets.size(), latest.size(), stateFile.getFileName());
+                return;
+            }
+            logger.warn("Ignoring damaged {}; reading every change log from the start", stateFile);
+        } catch (IOException e) {
+            logger.warn("Failed to read {}; reading every change log from the start: {}", stateFile, e.getMessage());
+        }
+        offsets.clear();
+        latest.clear();
+        prunedBefore = 0;
+    }
+
+    /**
+     * Layout: {@code "VUSR" [version:1][pruned before:8][logs:4]}, per log {@code [name length:2][name][offset:8]},
+     * then {@code [entries:4]} entries in the change log format and a CRC32 over everything before it.
+     */
+    private boolean readState(ByteBuffer in) {
+        int bodyLength = in.limit() - 4;
+        if (bodyLength < STATE_HEADER.length) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(in.array(), 0, bodyLength);
+        if (in.getInt(bodyLength) != (int) crc.getValue()
+                || !Arrays.equals(in.array(), 0, STATE_HEADER.length, STATE_HEADER, 0, STATE_HEADER.length)) {
+            return false;
+        }
+        in.position(STATE_HEADER.length);
+        prunedBefore = in.getLong();
+        int logs = in.getInt();
+        for (int i = 0; i < logs; i++) {
+            byte[] name = new byte[in.getShort() & 0xFFFF];
+            in.get(name);
+            offsets.put(new String(name, StandardCharsets.UTF_8), in.getLong());
+        }
+        int entries = in.getInt();
+        for (int i = 0; i < entries; i++) {
+            ChangeLog.Entry entry = ChangeLog.decode(in);
+            if (entry == null) {
+                return false;
+            }
+            recordIfNewer(entry);
+        }
+        return in.position() == bodyLength;
+    }
+
+    /**
+     * Write offsets and remembered entries to a temporary file and move it over the state file.
+     * Called by the tail thread, or after it has stopped.
+     */
+    private void saveState() {
+        List<ChangeLog.Entry> entries = new ArrayList<>(latest.values());
+        Map<byte[], Long> logs = new LinkedHashMap<>();
+        int size = STATE_HEADER.length + 8 + 4 + 4 + 4;
+        for (Map.Entry<String, Long> offset : offsets.entrySet()) {
+            if (offset.getValue() != IGNORED) {
+                byte[] name = offset.getKey().getBytes(StandardCharsets.UTF_8);
+                logs.put(name, offset.getValue());
+                size += 2 + name.length + 8;
+            }
+        }
+        for (ChangeLog.Entry entry : entries) {
+            size += ChangeLog.encodedSize(entry);
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.put(STATE_HEADER);
+        out.putLong(prunedBefore);
+        out.putInt(logs.size());
+        logs.forEach((name, offset) -> out.putShort((short) name.length).put(name).putLong(offset));
+        out.putInt(entries.size());
+        for (ChangeLog.Entry entry : entries) {
+            ChangeLog.encode(entry, out);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue());
+        out.flip();
+
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(false);
+            }
+            Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            stateChanged = false;
+            lastStateSave = System.currentTimeMillis();
+        } catch (IOException e) {
+            logger.warn("Failed to save replication state to {}: {}", stateFile, e.getMessage());
+        }
+    }
+
+    public void stop() {
+        running = false;
+        if (tailThread != null) {
+            tailThread.interrupt();
+            try {
+                tailThread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (output != null) {
+            flush();
+            saveState();
+            synchronized (appendLock) {
+                synchronized (this) {
+                    try {
+                        output.close();
+                    } catch (IOException e) {
+                        logger.warn("Failed to close {}: {}", ownLog, e.getMessage());
+                    }
+                    output = null;
+                }
+            }
+        }
+        logger.info("UUID replication stats: published={}, applied={}, superseded={}",
+                getPublished(), getApplied(), getSuperseded());
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getApplied() {
+        return applied.sum();
+    }
+
+    /**
+     * Entries from other proxies that lost to a newer write of the same username.
+     */
+    public long getSuperseded() {
+        return superseded.sum();
+    }
+}
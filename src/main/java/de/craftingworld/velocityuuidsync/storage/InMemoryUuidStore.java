@@ -0,0 +1,66 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Non-persistent store backed by a {@link ConcurrentHashMap}.
+ * Intended for tests and benchmarks; all mappings are lost on shutdown.
+ */
+public class InMemoryUuidStore implements UuidStore {
+
+    private final Map<String, UUID> mappings = new ConcurrentHashMap<>();
+
+    @Override
+    public void initialize() {
+    }
+
+    @Override
+    public UUID get(String username) {
+        return mappings.get(username);
+    }
+
+    @Override
+    public Map<String, UUID> getAll(Collection<String> usernames) {
+        Map<String, UUID> result = new HashMap<>();
+        for (String username : usernames) {
+            UUID uuid = mappings.get(username);
+            if (uuid != null) {
+                result.put(username, uuid);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void put(String username, UUID uuid) {
+        mappings.put(username, uuid);
+    }
+
+    @Override
+    public void putAll(List<UuidMapping> batch) {
+        for (UuidMapping mapping : batch) {
+            mappings.put(mapping.username(), mapping.uuid());
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, UUID> action) {
+        mappings.forEach(action);
+    }
+
+    @Override
+    public long count() {
+        return mappings.size();
+    }
+
+    @Override
+    public void close() {
+        mappings.clear();
+    }
+}
@@ -0,0 +1,252 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log store. Every put appends a record to the log file and the
+ * full mapping set is kept in memory, rebuilt by replaying the log on startup.
+ *
+ * <p>Layout, big-endian: the header {@code "VUSL" [version:1]}, then per record
+ * {@code [name length:2][name:n, UTF-8][msb:8][lsb:8][crc32:4]}, the CRC covering the
+ * record before it. Replay stops at the first record that is incomplete or fails its check,
+ * and the log is cut back to there. A put returns once its records are forced to disk.</p>
+ *
+ * <p>Logs written before the header existed hold unchecked records; they are converted
+ * on the first start.</p>
+ */
+public class LogFileUuidStore implements UuidStore {
+
+    private static final byte[] HEADER = {'V', 'U', 'S', 'L', 2};
+    private static final int MAX_NAME_BYTES = 0xFFFF;
+    private static final int FIXED_RECORD_BYTES = 2 + 8 + 8 + 4;
+
+    private final Path logPath;
+    private final Logger logger;
+    private final Map<String, UUID> mappings = new ConcurrentHashMap<>();
+    private FileChannel channel;
+    private DataOutputStream output;
+
+    public LogFileUuidStore(Path logPath, Logger logger) {
+        this.logPath = logPath;
+        this.logger = logger;
+    }
+
+    @Override
+    public void initialize() throws IOException {
+        if (Files.exists(logPath) && Files.size(logPath) > 0) {
+            if (!hasHeader()) {
+                convertLegacyLog();
+            }
+            long valid = replay();
+            long size = Files.size(logPath);
+            if (valid < size) {
+                // New records must not be appended after the damaged bytes, or the next replay stops before them
+                try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                    channel.force(true);
+                }
+                logger.warn("Discarded {} bytes of an incomplete or damaged record at the end of {}", size - valid, logPath);
+            }
+        }
+
+        channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        // Not closed separately from the channel; flushed and forced on every commit
+        output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        if (channel.size() == 0) {
+            output.write(HEADER);
+            commit();
+        }
+
+        logger.info("UUID log storage initialized at: {} ({} mappings)", logPath, mappings.size());
+    }
+
+    private boolean hasHeader() throws IOException {
+        byte[] start = new byte[HEADER.length];
+        try (InputStream input = Files.newInputStream(logPath)) {
+            int read = input.readNBytes(start, 0, start.length);
+            if (read < start.length) {
+                // A header that was cut short; nothing after it can be a record
+                return Arrays.equals(start, 0, read, HEADER, 0, read);
+            }
+        }
+        return Arrays.equals(start, HEADER);
+    }
+
+    /**
+     * Load every complete record whose checksum matches and return the length of the log up to the last one.
+     */
+    private long replay() throws IOException {
+        long valid = HEADER.length;
+        CRC32 crc = new CRC32();
+        byte[] record = new byte[FIXED_RECORD_BYTES + 64];
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath)))) {
+            if (input.skipBytes(HEADER.length) < HEADER.length) {
+                return 0;
+            }
+            while (true) {
+                int nameLength;
+                try {
+                    nameLength = input.readUnsignedShort();
+                    int length = FIXED_RECORD_BYTES + nameLength;
+                    if (record.length < length) {
+                        record = new byte[length];
+                    }
+                    record[0] = (byte) (nameLength >>> 8);
+                    record[1] = (byte) nameLength;
+                    input.readFully(record, 2, length - 2);
+                } catch (EOFException e) {
+                    // A torn record at the tail is dropped
+                    return valid;
+                }
+                int length = FIXED_RECORD_BYTES + nameLength;
+                ByteBuffer buffer = ByteBuffer.wrap(record, 0, length);
+                crc.reset();
+                crc.update(record, 0, length - 4);
+                if (buffer.getInt(length - 4) != (int) crc.getValue()) {
+                    // Damaged; whatever follows cannot be trusted to start at a record boundary
+                    return valid;
+                }
+                String username = new String(record, 2, nameLength, StandardCharsets.UTF_8);
+                mappings.put(username, new UUID(buffer.getLong(2 + nameLength), buffer.getLong(10 + nameLength)));
+                valid += length;
+            }
+        }
+    }
+
+    /**
+     * Replay a log from before records were checksummed and rewrite it in the current format.
+     */
+    private void convertLegacyLog() throws IOException {
+        long legacySize = Files.size(logPath);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath)))) {
+            while (true) {
+                String username;
+                UUID uuid;
+                try {
+                    username = input.readUTF();
+                    uuid = new UUID(input.readLong(), input.readLong());
+                } catch (EOFException | UTFDataFormatException e) {
+                    // A torn record at the tail is dropped, and so is anything after a damaged one
+                    break;
+                }
+                mappings.put(username, uuid);
+            }
+        }
+
+        Path temp = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+        try (FileChannel converted = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(converted)));
+            out.write(HEADER);
+            for (Map.Entry<String, UUID> mapping : mappings.entrySet()) {
+                writeRecord(out, mapping.getKey(), mapping.getValue());
+            }
+            out.flush();
+            converted.force(true);
+        }
+        Files.move(temp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Converted {} ({} bytes) to the checksummed log format, {} mappings",
+                logPath, legacySize, mappings.size());
+        mappings.clear();
+    }
+
+    @Override
+    public UUID get(String username) {
+        return mappings.get(username);
+    }
+
+    @Override
+    public Map<String, UUID> getAll(Collection<String> usernames) {
+        Map<String, UUID> result = new HashMap<>();
+        for (String username : usernames) {
+            UUID uuid = mappings.get(username);
+            if (uuid != null) {
+                result.put(username, uuid);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void put(String username, UUID uuid) throws IOException {
+        writeRecord(output, username, uuid);
+        commit();
+        mappings.put(username, uuid);
+    }
+
+    @Override
+    public synchronized void putAll(List<UuidMapping> batch) throws IOException {
+        for (UuidMapping mapping : batch) {
+            writeRecord(output, mapping.username(), mapping.uuid());
+        }
+        commit();
+        for (UuidMapping mapping : batch) {
+            mappings.put(mapping.username(), mapping.uuid());
+        }
+    }
+
+    /**
+     * Push buffered records to the file and force them to disk, so an acknowledged write survives a crash.
+     */
+    private void commit() throws IOException {
+        output.flush();
+        channel.force(false);
+    }
+
+    private static void writeRecord(DataOutputStream out, String username, UUID uuid) throws IOException {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) {
+            throw new IOException("Username too long for the UUID log: " + name.length + " bytes");
+        }
+        ByteBuffer record = ByteBuffer.allocate(FIXED_RECORD_BYTES + name.length);
+        record.putShort((short) name.length);
+        record.put(name);
+        record.putLong(uuid.getMostSignificantBits());
+        record.putLong(uuid.getLeastSignificantBits());
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue());
+        out.write(record.array());
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, UUID> action) {
+        mappings.forEach(action);
+    }
+
+    @Override
+    public long count() {
+        return mappings.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (output != null) {
+            try {
+                output.close();
+                logger.info("UUID log storage closed successfully");
+            } catch (IOException e) {
+                logger.error("Failed to close UUID log", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,646 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only store on memory-mapped segment files.
+ *
+ * <p>Every mapping is a fixed-size record (UUID, sequence number, username of at most
+ * 16 bytes, CRC32) appended to the active segment. An open-addressing hash index maps
+ * usernames to record positions, so a lookup is a hash probe plus a read from
+ * the mapped segment. Segments are replayed on startup, and sealed segments that
+ * are mostly overwritten are compacted on a background thread.</p>
+ *
+ * <p>Sequence numbers only grow and are kept when compaction copies a record, so replay
+ * lets the highest one win regardless of segment order or the wall clock. Replay of a
+ * segment stops at the first record that fails its checksum, such as one torn by a crash.</p>
+ *
+ * <p>Segments from before records were checksummed ({@value #LEGACY_SEGMENT_SUFFIX}) are
+ * converted on the first start.</p>
+ */
+public class MappedLogUuidStore implements UuidStore {
+
+    static final int RECORD_SIZE = 48;
+    static final int MAX_NAME_BYTES = 16;
+
+    // Record layout; the CRC covers everything before it, including the zero padding of the name
+    private static final int OFFSET_MSB = 0;
+    private static final int OFFSET_LSB = 8;
+    private static final int OFFSET_SEQUENCE = 16;
+    private static final int OFFSET_NAME_LENGTH = 24;
+    private static final int OFFSET_NAME = 25;
+    private static final int OFFSET_CRC = OFFSET_NAME + MAX_NAME_BYTES;
+
+    private static final int RECORDS_PER_SEGMENT = 65536;
+    private static final int SEGMENT_SIZE = RECORD_SIZE * RECORDS_PER_SEGMENT;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg2";
+    static final String LEGACY_SEGMENT_SUFFIX = ".seg";
+    // In legacy segments: a wall-clock timestamp where the sequence number is now, and no CRC
+    private static final int LEGACY_OFFSET_TIMESTAMP = 16;
+    private static final long COMPACTION_INTERVAL_MINUTES = 5;
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+    private final Path directory;
+    private final Logger logger;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All fields below are guarded by lock
+    private final Map<Integer, Segment> segments = new HashMap<>();
+    private Segment active;
+    private int nextSegmentId = 1;
+    private long nextSequence = 1;
+    private final CRC32 crc = new CRC32();
+
+    // Open-addressing index: a position of 0 marks an empty slot
+    private int[] indexHashes;
+    private long[] indexPositions;
+    private int indexSize;
+
+    private ScheduledExecutorService compactor;
+
+    public MappedLogUuidStore(Path directory, Logger logger) {
+        this.directory = directory;
+        this.logger = logger;
+    }
+
+    @Override
+    public void initialize() throws IOException {
+        Files.createDirectories(directory);
+        indexHashes = new int[INITIAL_INDEX_CAPACITY];
+        indexPositions = new long[INITIAL_INDEX_CAPACITY];
+
+        long start = System.nanoTime();
+        List<Integer> ids = listSegmentIds(SEGMENT_SUFFIX);
+        for (int id : ids) {
+            Segment segment = openSegment(id);
+            segments.put(id, segment);
+            replay(segment);
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+        }
+
+        if (ids.isEmpty()) {
+            rollSegment();
+        } else {
+            active = segments.get(ids.get(ids.size() - 1));
+        }
+        convertLegacySegments();
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "velocity-uuid-sync-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactSafely,
+                COMPACTION_INTERVAL_MINUTES, COMPACTION_INTERVAL_MINUTES, TimeUnit.MINUTES);
+
+        logger.info("UUID mmap storage initialized at: {} ({} mappings in {} segments, replayed in {} ms)",
+                directory, indexSize, segments.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private List<Integer> listSegmentIds(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(suffix))
+                    .map(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void replay(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + RECORD_SIZE <= SEGMENT_SIZE) {
+            int nameLength = buffer.get(offset + OFFSET_NAME_LENGTH);
+            if (nameLength == 0 && buffer.getLong(offset + OFFSET_SEQUENCE) == 0) {
+                // Zeroed space marks the end of the written region
+                break;
+            }
+            if (nameLength < 0 || nameLength > MAX_NAME_BYTES || buffer.getInt(offset + OFFSET_CRC) != checksum(buffer, offset)) {
+                logger.warn("Stopped replaying {} at a damaged record at offset {}; {} bytes after it are discarded",
+                        segment.path.getFileName(), offset, SEGMENT_SIZE - offset);
+                // Pages after a torn one may have reached the disk too; clear them so they are not
+                // mistaken for records once new ones are appended in front of them
+                for (int i = offset; i < SEGMENT_SIZE; i += 8) {
+                    buffer.putLong(i, 0);
+                }
+                break;
+            }
+
+            byte[] name = new byte[nameLength];
+            buffer.get(offset + OFFSET_NAME, name);
+            long sequence = buffer.getLong(offset + OFFSET_SEQUENCE);
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            long position = position(segment.id, offset);
+            int hash = hash(name);
+            int slot = findSlot(name, hash);
+            long existing = indexPositions[slot];
+            if (existing == 0) {
+                insertNew(slot, hash, position);
+                segment.live++;
+            } else if (sequenceAt(existing) < sequence) {
+                segmentOf(existing).live--;
+                indexPositions[slot] = position;
+                segment.live++;
+            }
+            offset += RECORD_SIZE;
+        }
+        segment.writeOffset = offset;
+    }
+
+    /**
+     * Append the newest mapping of each name in segments of the unchecksummed format,
+     * then delete them.
+     */
+    private void convertLegacySegments() throws IOException {
+        List<Integer> ids = listSegmentIds(LEGACY_SEGMENT_SUFFIX);
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        // Newest record per name by the timestamp the legacy format ordered by: {timestamp, msb, lsb}
+        Map<String, long[]> newest = new HashMap<>();
+        List<Path> paths = new ArrayList<>();
+        for (int id : ids) {
+            Path path = segmentPath(id, LEGACY_SEGMENT_SUFFIX);
+            paths.add(path);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), SEGMENT_SIZE));
+                for (int offset = 0; offset + RECORD_SIZE <= buffer.capacity(); offset += RECORD_SIZE) {
+                    int nameLength = buffer.get(offset + OFFSET_NAME_LENGTH);
+                    if (nameLength <= 0 || nameLength > MAX_NAME_BYTES) {
+                        break;
+                    }
+                    byte[] name = new byte[nameLength];
+                    buffer.get(offset + OFFSET_NAME, name);
+                    long timestamp = buffer.getLong(offset + LEGACY_OFFSET_TIMESTAMP);
+                    long[] current = newest.get(new String(name, StandardCharsets.UTF_8));
+                    if (current == null || current[0] <= timestamp) {
+                        newest.put(new String(name, StandardCharsets.UTF_8),
+                                new long[]{timestamp, buffer.getLong(offset + OFFSET_MSB), buffer.getLong(offset + OFFSET_LSB)});
+                    }
+                }
+            }
+        }
+
+        List<Map.Entry<String, long[]>> records = new ArrayList<>(newest.entrySet());
+        records.sort(Comparator.comparingLong(record -> record.getValue()[0]));
+        for (Map.Entry<String, long[]> record : records) {
+            long[] value = record.getValue();
+            append(record.getKey().getBytes(StandardCharsets.UTF_8), new UUID(value[1], value[2]));
+        }
+        active.buffer.force();
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+        logger.info("Converted {} UUID log segments to the checksummed format ({} mappings)", paths.size(), records.size());
+    }
+
+    @Override
+    public UUID get(String username) {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            long position = indexPositions[findSlot(name, hash(name))];
+            if (position == 0) {
+                return null;
+            }
+            MappedByteBuffer buffer = segmentOf(position).buffer;
+            int offset = offsetOf(position);
+            return new UUID(buffer.getLong(offset + OFFSET_MSB), buffer.getLong(offset + OFFSET_LSB));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, UUID> getAll(Collection<String> usernames) {
+        Map<String, UUID> result = new HashMap<>();
+        for (String username : usernames) {
+            UUID uuid = get(username);
+            if (uuid != null) {
+                result.put(username, uuid);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Append a mapping. The record is not forced to disk; {@link #putAll} and
+     * {@link #close} do that once per batch.
+     */
+    @Override
+    public void put(String username, UUID uuid) throws IOException {
+        byte[] name = encodeName(username);
+        if (name == null) {
+            throw new IllegalArgumentException("Username must be 1-" + MAX_NAME_BYTES + " UTF-8 bytes: " + username);
+        }
+
+        lock.writeLock().lock();
+        try {
+            append(name, uuid);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Append a batch and force it to disk. A name that does not fit a record is logged and
+     * left out; the rest of the batch is still written.
+     */
+    @Override
+    public void putAll(List<UuidMapping> mappings) throws IOException {
+        List<byte[]> names = new ArrayList<>(mappings.size());
+        List<UUID> uuids = new ArrayList<>(mappings.size());
+        for (UuidMapping mapping : mappings) {
+            byte[] name = encodeName(mapping.username());
+            if (name == null) {
+                logger.warn("Not storing the UUID of '{}': names are limited to {} UTF-8 bytes in the mmap engine",
+                        mapping.username(), MAX_NAME_BYTES);
+                continue;
+            }
+            names.add(name);
+            uuids.add(mapping.uuid());
+        }
+        if (names.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < names.size(); i++) {
+                append(names.get(i), uuids.get(i));
+            }
+            active.buffer.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void append(byte[] name, UUID uuid) throws IOException {
+        if (active.writeOffset + RECORD_SIZE > SEGMENT_SIZE) {
+            active.buffer.force();
+            rollSegment();
+        }
+
+        MappedByteBuffer buffer = active.buffer;
+        int offset = active.writeOffset;
+        buffer.putLong(offset + OFFSET_MSB, uuid.getMostSignificantBits());
+        buffer.putLong(offset + OFFSET_LSB, uuid.getLeastSignificantBits());
+        buffer.putLong(offset + OFFSET_SEQUENCE, nextSequence++);
+        buffer.put(offset + OFFSET_NAME_LENGTH, (byte) name.length);
+        buffer.put(offset + OFFSET_NAME, name);
+        // The CRC goes last; a record without a matching one ends replay
+        buffer.putInt(offset + OFFSET_CRC, checksum(buffer, offset));
+        active.writeOffset += RECORD_SIZE;
+
+        long position = position(active.id, offset);
+        int hash = hash(name);
+        int slot = findSlot(name, hash);
+        long existing = indexPositions[slot];
+        if (existing == 0) {
+            insertNew(slot, hash, position);
+        } else {
+            segmentOf(existing).live--;
+            indexPositions[slot] = position;
+        }
+        active.live++;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, UUID> action) {
+        lock.readLock().lock();
+        try {
+            for (long position : indexPositions) {
+                if (position == 0) {
+                    continue;
+                }
+                MappedByteBuffer buffer = segmentOf(position).buffer;
+                int offset = offsetOf(position);
+                byte[] name = new byte[buffer.get(offset + OFFSET_NAME_LENGTH)];
+                buffer.get(offset + OFFSET_NAME, name);
+                UUID uuid = new UUID(buffer.getLong(offset + OFFSET_MSB), buffer.getLong(offset + OFFSET_LSB));
+                action.accept(new String(name, StandardCharsets.UTF_8), uuid);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return indexSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void compactSafely() {
+        try {
+            compact();
+        } catch (Exception e) {
+            logger.error("UUID log compaction failed", e);
+        }
+    }
+
+    /**
+     * Copy the live records of mostly-dead sealed segments into fresh segments,
+     * repoint the index and delete the old files. Writers are only blocked while
+     * the index is updated.
+     */
+    void compact() throws IOException {
+        List<Segment> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                int records = segment.writeOffset / RECORD_SIZE;
+                if (segment != active && segment.live * 2 < records) {
+                    candidates.add(segment);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        candidates.sort(Comparator.comparingInt(segment -> segment.id));
+
+        List<Segment> targets = new ArrayList<>();
+        List<long[]> moves = new ArrayList<>();
+        Segment target = null;
+        byte[] record = new byte[RECORD_SIZE];
+        for (Segment segment : candidates) {
+            for (int offset = 0; offset < segment.writeOffset; offset += RECORD_SIZE) {
+                if (!isLive(segment, offset)) {
+                    continue;
+                }
+                if (target == null || target.writeOffset + RECORD_SIZE > SEGMENT_SIZE) {
+                    target = allocateSegment();
+                    targets.add(target);
+                }
+                segment.buffer.get(offset, record);
+                target.buffer.put(target.writeOffset, record);
+                moves.add(new long[]{position(segment.id, offset), position(target.id, target.writeOffset)});
+                target.writeOffset += RECORD_SIZE;
+            }
+        }
+        for (Segment segment : targets) {
+            segment.buffer.force();
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : targets) {
+                segments.put(segment.id, segment);
+            }
+            for (long[] move : moves) {
+                // Skip records that were overwritten while we were copying
+                int slot = findSlot(nameAt(move[0]), indexHashAt(move[0]));
+                if (indexPositions[slot] == move[0]) {
+                    indexPositions[slot] = move[1];
+                    segmentOf(move[1]).live++;
+                }
+            }
+            for (Segment segment : candidates) {
+                segments.remove(segment.id);
+            }
+            // New writes must land in a segment newer than the compacted ones
+            active.buffer.force();
+            rollSegment();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        for (Segment segment : candidates) {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        }
+        logger.info("Compacted {} UUID log segments into {} ({} live records)",
+                candidates.size(), targets.size(), moves.size());
+    }
+
+    private boolean isLive(Segment segment, int offset) {
+        lock.readLock().lock();
+        try {
+            long position = position(segment.id, offset);
+            return indexPositions[findSlot(nameAt(position), indexHashAt(position))] == position;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Segment allocateSegment() throws IOException {
+        int id;
+        lock.writeLock().lock();
+        try {
+            id = nextSegmentId++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return openSegment(id);
+    }
+
+    private void rollSegment() throws IOException {
+        Segment segment = openSegment(nextSegmentId++);
+        segments.put(segment.id, segment);
+        active = segment;
+    }
+
+    private Path segmentPath(int id, String suffix) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, suffix));
+    }
+
+    private Segment openSegment(int id) throws IOException {
+        Path path = segmentPath(id, SEGMENT_SUFFIX);
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+        return new Segment(id, path, channel, buffer);
+    }
+
+    private int findSlot(byte[] name, int hash) {
+        int mask = indexPositions.length - 1;
+        int slot = hash & mask;
+        while (true) {
+            long position = indexPositions[slot];
+            if (position == 0 || (indexHashes[slot] == hash && nameEquals(position, name))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insertNew(int slot, int hash, long position) {
+        indexHashes[slot] = hash;
+        indexPositions[slot] = position;
+        indexSize++;
+        // Keep the load factor at or below 0.5 so probe chains stay short
+        if (indexSize * 2 > indexPositions.length) {
+            resizeIndex();
+        }
+    }
+
+    private void resizeIndex() {
+        int[] oldHashes = indexHashes;
+        long[] oldPositions = indexPositions;
+        indexHashes = new int[oldPositions.length * 2];
+        indexPositions = new long[oldPositions.length * 2];
+        int mask = indexPositions.length - 1;
+        for (int i = 0; i < oldPositions.length; i++) {
+            if (oldPositions[i] == 0) {
+                continue;
+            }
+            int slot = oldHashes[i] & mask;
+            while (indexPositions[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            indexHashes[slot] = oldHashes[i];
+            indexPositions[slot] = oldPositions[i];
+        }
+    }
+
+    private boolean nameEquals(long position, byte[] name) {
+        MappedByteBuffer buffer = segmentOf(position).buffer;
+        int offset = offsetOf(position);
+        if (buffer.get(offset + OFFSET_NAME_LENGTH) != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(offset + OFFSET_NAME + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] nameAt(long position) {
+        MappedByteBuffer buffer = segmentOf(position).buffer;
+        int offset = offsetOf(position);
+        byte[] name = new byte[buffer.get(offset + OFFSET_NAME_LENGTH)];
+        buffer.get(offset + OFFSET_NAME, name);
+        return name;
+    }
+
+    private int indexHashAt(long position) {
+        return hash(nameAt(position));
+    }
+
+    private long sequenceAt(long position) {
+        return segmentOf(position).buffer.getLong(offsetOf(position) + OFFSET_SEQUENCE);
+    }
+
+    /**
+     * CRC of the record at {@code offset}. Only called with the write lock held, or before
+     * the store is shared, since the CRC instance is reused.
+     */
+    private int checksum(MappedByteBuffer buffer, int offset) {
+        crc.reset();
+        crc.update(buffer.slice(offset, OFFSET_CRC));
+        return (int) crc.getValue();
+    }
+
+    private Segment segmentOf(long position) {
+        return segments.get((int) (position >>> 32));
+    }
+
+    private static long position(int segmentId, int offset) {
+        return ((long) segmentId << 32) | offset;
+    }
+
+    private static int offsetOf(long position) {
+        return (int) position;
+    }
+
+    /**
+     * UTF-8 bytes of a username, or {@code null} if they do not fit a record.
+     */
+    private static byte[] encodeName(String username) {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        if (name.length == 0 || name.length > MAX_NAME_BYTES) {
+            return null;
+        }
+        return name;
+    }
+
+    private static int hash(byte[] name) {
+        // FNV-1a
+        int hash = 0x811c9dc5;
+        for (byte b : name) {
+            hash ^= b;
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+            try {
+                compactor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+                segment.channel.close();
+            }
+            segments.clear();
+            logger.info("UUID mmap storage closed successfully");
+        } catch (IOException e) {
+            logger.error("Failed to close UUID log segments", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writeOffset;
+        private int live;
+
+        private Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One entry of the name history: {@code username} started pointing at {@code uuid} at {@code changedAt}.
+ */
+public record NameChange(String username, UUID uuid, Instant changedAt) {
+}
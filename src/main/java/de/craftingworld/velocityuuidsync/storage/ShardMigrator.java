@@ -0,0 +1,240 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Offline conversion between the single {@code uuid-mappings.db} and any number of shards.
+ *
+ * <p>Run it with the proxy stopped, then set {@code sqlite-shards} to the same count:</p>
+ * <pre>
+ * java -cp velocity-uuid-sync.jar:sqlite-jdbc.jar:slf4j-api.jar \
+ *     de.craftingworld.velocityuuidsync.storage.ShardMigrator plugins/velocity-uuid-sync 8
+ * </pre>
+ *
+ * <p>Mappings keep their {@code last_updated} and the name history is carried over. The new
+ * layout is built in a staging directory and only swapped in once its row count matches; the
+ * old files are moved to a {@code shard-migration-backup-*} directory rather than deleted.</p>
+ */
+public final class ShardMigrator {
+
+    private static final String STAGING_DIRECTORY = "shard-migration";
+    private static final int COPY_BATCH_SIZE = 10000;
+
+    private ShardMigrator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: ShardMigrator <plugin data directory> <target shard count>");
+            System.exit(2);
+        }
+        migrate(Path.of(args[0]), Integer.parseInt(args[1]), LoggerFactory.getLogger(ShardMigrator.class));
+    }
+
+    public static void migrate(Path dataDirectory, int targetShards, Logger logger) throws Exception {
+        if (targetShards < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1, got " + targetShards);
+        }
+        Path single = dataDirectory.resolve(ShardedUuidStore.SINGLE_FILE);
+        Path shardDirectory = dataDirectory.resolve(ShardedUuidStore.SHARD_DIRECTORY);
+        int currentShards = ShardedUuidStore.readShardCount(shardDirectory);
+        if (currentShards > 0 && Files.exists(single)) {
+            throw new IllegalStateException("Both " + single + " and " + shardDirectory + " exist; remove the stale one first");
+        }
+
+        List<Path> sources = new ArrayList<>();
+        if (currentShards > 0) {
+            for (int i = 0; i < currentShards; i++) {
+                sources.add(ShardedUuidStore.shardFile(shardDirectory, i));
+            }
+        } else if (Files.exists(single)) {
+            currentShards = 1;
+            sources.add(single);
+        }
+        if (sources.isEmpty()) {
+            logger.info("No UUID database in {}; the plugin creates {} shard(s) on first start", dataDirectory, targetShards);
+            return;
+        }
+        if (currentShards == targetShards) {
+            logger.info("{} already uses {} shard(s), nothing to do", dataDirectory, targetShards);
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        // Opening a store upgrades its schema and checkpoints its WAL on close
+        for (Path source : sources) {
+            SqliteUuidStore store = new SqliteUuidStore(source, logger);
+            store.initialize();
+            store.close();
+        }
+
+        Path staging = dataDirectory.resolve(STAGING_DIRECTORY);
+        deleteRecursively(staging);
+        Files.createDirectories(staging);
+        List<Path> targets = new ArrayList<>();
+        if (targetShards == 1) {
+            targets.add(staging.resolve(ShardedUuidStore.SINGLE_FILE));
+        } else {
+            for (int i = 0; i < targetShards; i++) {
+                targets.add(ShardedUuidStore.shardFile(staging, i));
+            }
+        }
+        for (Path target : targets) {
+            SqliteUuidStore store = new SqliteUuidStore(target, logger);
+            store.initialize();
+            store.close();
+        }
+
+        long copied = copy(sources, targets, logger);
+        long expected = countRows(sources);
+        long written = countRows(targets);
+        if (written != expected || copied != expected) {
+            throw new IllegalStateException("Copied " + written + " of " + expected + " mappings; the original files in "
+                    + dataDirectory + " are untouched, the partial copy is in " + staging);
+        }
+
+        // Swap layouts: old files go to a backup directory, the staged ones take their place
+        Path backup = dataDirectory.resolve("shard-migration-backup-" + System.currentTimeMillis());
+        Files.createDirectories(backup);
+        if (Files.exists(shardDirectory)) {
+            Files.move(shardDirectory, backup.resolve(ShardedUuidStore.SHARD_DIRECTORY));
+        } else {
+            for (String suffix : new String[] {"", "-wal", "-shm"}) {
+                Path file = dataDirectory.resolve(ShardedUuidStore.SINGLE_FILE + suffix);
+                if (Files.exists(file)) {
+                    Files.move(file, backup.resolve(file.getFileName()));
+                }
+            }
+        }
+        if (targetShards == 1) {
+            Files.move(staging.resolve(ShardedUuidStore.SINGLE_FILE), single);
+            deleteRecursively(staging);
+        } else {
+            ShardedUuidStore.writeShardCount(staging, targetShards);
+            Files.move(staging, shardDirectory);
+        }
+
+        logger.info("Moved {} UUID mappings from {} to {} shard(s) in {} ms; previous files are in {}",
+                copied, currentShards, targetShards, System.currentTimeMillis() - start, backup);
+        logger.info("Set sqlite-shards={} in config.properties before starting the proxy", targetShards);
+    }
+
+    /**
+     * Copy mappings, then replace the history the insert trigger just generated with the original one.
+     */
+    private static long copy(List<Path> sources, List<Path> targets, Logger logger) throws SQLException {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            List<PreparedStatement> mappingInserts = new ArrayList<>();
+            List<PreparedStatement> historyInserts = new ArrayList<>();
+            for (Path target : targets) {
+                Connection connection = DriverManager.getConnection("jdbc:sqlite:" + target);
+                connections.add(connection);
+                try (Statement stmt = connection.createStatement()) {
+                    // The staged files are discarded if anything fails, so durability is not needed yet
+                    stmt.execute("PRAGMA synchronous = OFF");
+                }
+                connection.setAutoCommit(false);
+                mappingInserts.add(connection.prepareStatement(
+                        "INSERT INTO uuid_mappings (username, uuid_msb, uuid_lsb, last_updated) VALUES (?, ?, ?, ?)"));
+                historyInserts.add(connection.prepareStatement(
+                        "INSERT INTO uuid_name_history (username, uuid_msb, uuid_lsb, changed_at) VALUES (?, ?, ?, ?)"));
+            }
+
+            long mappings = copyRows(sources, "SELECT username, uuid_msb, uuid_lsb, last_updated FROM uuid_mappings",
+                    mappingInserts, true);
+            for (Connection connection : connections) {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("DELETE FROM uuid_name_history");
+                }
+            }
+            long history = copyRows(sources,
+                    "SELECT username, uuid_msb, uuid_lsb, changed_at FROM uuid_name_history ORDER BY changed_at, id",
+                    historyInserts, false);
+            for (Connection connection : connections) {
+                connection.commit();
+            }
+            logger.info("Copied {} mappings and {} name history entries", mappings, history);
+            return mappings;
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    private static long copyRows(List<Path> sources, String query, List<PreparedStatement> inserts,
+                                 boolean timestampAsText) throws SQLException {
+        long rows = 0;
+        int[] pending = new int[inserts.size()];
+        for (Path source : sources) {
+            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + source);
+                 Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(query)) {
+                while (rs.next()) {
+                    String username = rs.getString(1);
+                    int shard = ShardedUuidStore.shardOf(username, inserts.size());
+                    PreparedStatement insert = inserts.get(shard);
+                    insert.setString(1, username);
+                    insert.setLong(2, rs.getLong(2));
+                    insert.setLong(3, rs.getLong(3));
+                    if (timestampAsText) {
+                        insert.setString(4, rs.getString(4));
+                    } else {
+                        insert.setLong(4, rs.getLong(4));
+                    }
+                    insert.addBatch();
+                    if (++pending[shard] == COPY_BATCH_SIZE) {
+                        insert.executeBatch();
+                        pending[shard] = 0;
+                    }
+                    rows++;
+                }
+            }
+        }
+        for (int shard = 0; shard < inserts.size(); shard++) {
+            if (pending[shard] > 0) {
+                inserts.get(shard).executeBatch();
+            }
+        }
+        return rows;
+    }
+
+    private static long countRows(List<Path> databases) throws SQLException {
+        long rows = 0;
+        for (Path database : databases) {
+            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database);
+                 Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM uuid_mappings")) {
+                rows += rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+        return rows;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Spreads mappings over several {@link SqliteUuidStore} files by a hash of the lowercased username.
+ *
+ * <p>Each shard has its own writer connection and read pool, so batches for different shards
+ * commit in parallel instead of queueing on one SQLite write lock. A batch is atomic per shard,
+ * not across shards. Reverse lookups ask every shard, since one UUID's usernames may live
+ * in different files.</p>
+ *
+ * <p>The shard count is recorded next to the shard files. Starting with a different
+ * {@code sqlite-shards} value, or with an unsharded {@code uuid-mappings.db} still present, fails
+ * instead of silently hiding mappings; {@link ShardMigrator} converts between layouts offline.</p>
+ */
+public class ShardedUuidStore implements UuidStore {
+
+    static final String SINGLE_FILE = "uuid-mappings.db";
+    static final String SHARD_DIRECTORY = "uuid-shards";
+    static final String SHARD_COUNT_FILE = "shards.properties";
+
+    private final Path dataDirectory;
+    private final Path directory;
+    private final Logger logger;
+    private final SqliteUuidStore[] shards;
+    private ExecutorService writers;
+
+    public ShardedUuidStore(Path dataDirectory, Logger logger, SqliteOptions options) {
+        this.dataDirectory = dataDirectory;
+        this.directory = dataDirectory.resolve(SHARD_DIRECTORY);
+        this.logger = logger;
+        this.shards = new SqliteUuidStore[options.shards()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new SqliteUuidStore(shardFile(directory, i), logger, options);
+        }
+    }
+
+    static Path shardFile(Path directory, int shard) {
+        return directory.resolve("shard-" + shard + ".db");
+    }
+
+    /**
+     * Shard of an already lowercased username. Must never change, or existing files become unreadable.
+     */
+    static int shardOf(String username, int shardCount) {
+        int h = username.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return Math.floorMod(h, shardCount);
+    }
+
+    /**
+     * Shard count recorded in {@code directory}, or 0 if it holds no shards.
+     */
+    static int readShardCount(Path directory) throws IOException {
+        Path countFile = directory.resolve(SHARD_COUNT_FILE);
+        if (!Files.exists(countFile)) {
+            return 0;
+        }
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(countFile)) {
+            properties.load(input);
+        }
+        return Integer.parseInt(properties.getProperty("shards", "0").trim());
+    }
+
+    static IllegalStateException shardCountMismatch(Path directory, int recorded, int configured) {
+        return new IllegalStateException(directory + " holds " + recorded + " shards but sqlite-shards is "
+                + configured + "; stop the proxy and run ShardMigrator to rebalance");
+    }
+
+    static void writeShardCount(Path directory, int shardCount) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("shards", String.valueOf(shardCount));
+        try (OutputStream output = Files.newOutputStream(directory.resolve(SHARD_COUNT_FILE))) {
+            properties.store(output, "Written by velocity-uuid-sync; change with ShardMigrator, never by hand");
+        }
+    }
+
+    @Override
+    public void initialize() throws SQLException, IOException {
+        int recorded = readShardCount(directory);
+        if (recorded != 0 && recorded != shards.length) {
+            throw shardCountMismatch(directory, recorded, shards.length);
+        }
+        if (recorded == 0 && Files.exists(dataDirectory.resolve(SINGLE_FILE))) {
+            throw new IllegalStateException(dataDirectory.resolve(SINGLE_FILE) + " still holds unsharded mappings; "
+                    + "stop the proxy and run ShardMigrator to split it into " + shards.length + " shards");
+        }
+
+        Files.createDirectories(directory);
+        for (SqliteUuidStore shard : shards) {
+            shard.initialize();
+        }
+        if (recorded == 0) {
+            writeShardCount(directory, shards.length);
+        }
+
+        AtomicInteger threadId = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(shards.length, runnable -> {
+            Thread thread = new Thread(runnable, "velocity-uuid-sync-shard-writer-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Sharded UUID storage initialized at: {} ({} shards)", directory, shards.length);
+    }
+
+    private SqliteUuidStore shardFor(String username) {
+        return shards[shardOf(username, shards.length)];
+    }
+
+    private <T> Map<Integer, List<T>> groupByShard(Collection<T> items, Function<T, String> username) {
+        Map<Integer, List<T>> groups = new HashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(shardOf(username.apply(item), shards.length), shard -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    /**
+     * Run one write per shard on the writer pool and wait for all of them.
+     */
+    private <T> void writeInParallel(Map<Integer, List<T>> groups, ShardWrite<T> write) throws Exception {
+        if (groups.size() == 1) {
+            Map.Entry<Integer, List<T>> only = groups.entrySet().iterator().next();
+            write.apply(shards[only.getKey()], only.getValue());
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>(groups.size());
+        for (Map.Entry<Integer, List<T>> group : groups.entrySet()) {
+            SqliteUuidStore shard = shards[group.getKey()];
+            futures.add(writers.submit(() -> {
+                write.apply(shard, group.getValue());
+                return null;
+            }));
+        }
+        Exception failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public UUID get(String username) throws SQLException {
+        return shardFor(username).get(username);
+    }
+
+    @Override
+    public Map<String, UUID> getAll(Collection<String> usernames) throws SQLException {
+        Map<String, UUID> result = new HashMap<>();
+        for (Map.Entry<Integer, List<String>> group : groupByShard(usernames, Function.identity()).entrySet()) {
+            result.putAll(shards[group.getKey()].getAll(group.getValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public void put(String username, UUID uuid) throws SQLException {
+        shardFor(username).put(username, uuid);
+    }
+
+    @Override
+    public void putAll(List<UuidMapping> mappings) throws Exception {
+        if (mappings.isEmpty()) {
+            return;
+        }
+        writeInParallel(groupByShard(mappings, UuidMapping::username), SqliteUuidStore::putAll);
+    }
+
+    @Override
+    public void touchAll(Collection<UuidMapping> mappings) throws Exception {
+        if (mappings.isEmpty()) {
+            return;
+        }
+        writeInParallel(groupByShard(mappings, UuidMapping::username), SqliteUuidStore::touchAll);
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, UUID> action) throws SQLException {
+        for (SqliteUuidStore shard : shards) {
+            shard.forEach(action);
+        }
+    }
+
+    @Override
+    public long count() throws SQLException {
+        long count = 0;
+        for (SqliteUuidStore shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+
+    /**
+     * With at least as many partitions as shards, each shard is split further by rowid;
+     * otherwise every partition reads whole shards.
+     */
+    @Override
+    public void forEachInPartition(int partition, int partitions, BiConsumer<String, UUID> action) throws SQLException {
+        if (partitions <= shards.length) {
+            for (int shard = partition; shard < shards.length; shard += partitions) {
+                shards[shard].forEach(action);
+            }
+            return;
+        }
+        int shard = partition % shards.length;
+        int subPartitions = (partitions - 1 - shard) / shards.length + 1;
+        shards[shard].forEachInPartition(partition / shards.length, subPartitions, action);
+    }
+
+    /**
+     * Each shard in username order, one after the other.
+     */
+    @Override
+    public void forEachInUsernameOrder(BiConsumer<String, UUID> action) throws SQLException {
+        for (SqliteUuidStore shard : shards) {
+            shard.forEachInUsernameOrder(action);
+        }
+    }
+
+    @Override
+    public boolean tracksChanges() {
+        return true;
+    }
+
+    /**
+     * A username's changes all live in one shard, so reading shard by shard keeps them in order.
+     */
+    @Override
+    public void forEachChangedSince(long epochMillis, BiConsumer<String, UUID> action) throws SQLException {
+        for (SqliteUuidStore shard : shards) {
+            shard.forEachChangedSince(epochMillis, action);
+        }
+    }
+
+    @Override
+    public List<String> getUsernames(UUID uuid) throws SQLException {
+        List<String> usernames = new ArrayList<>();
+        for (SqliteUuidStore shard : shards) {
+            usernames.addAll(shard.getUsernames(uuid));
+        }
+        usernames.sort(null);
+        return usernames;
+    }
+
+    @Override
+    public List<NameChange> getNameHistory(UUID uuid) throws SQLException {
+        List<NameChange> history = new ArrayList<>();
+        for (SqliteUuidStore shard : shards) {
+            history.addAll(shard.getNameHistory(uuid));
+        }
+        history.sort(Comparator.comparing(NameChange::changedAt));
+        return history;
+    }
+
+    @Override
+    public void close() {
+        if (writers != null) {
+            writers.shutdown();
+        }
+        for (SqliteUuidStore shard : shards) {
+            shard.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ShardWrite<T> {
+        void apply(SqliteUuidStore shard, List<T> items) throws Exception;
+    }
+}
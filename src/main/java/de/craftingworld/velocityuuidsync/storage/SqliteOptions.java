@@ -0,0 +1,30 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+/**
+ * Connection settings for {@link SqliteUuidStore}.
+ *
+ * @param readConnections number of pooled read-only connections
+ * @param synchronous     {@code PRAGMA synchronous} for the writer ({@code NORMAL} is durable enough in WAL mode
+ *                        to survive an application crash; only a power loss can drop the last commits)
+ * @param mmapSizeBytes   {@code PRAGMA mmap_size} for every connection, 0 disables memory-mapped reads
+ * @param shards          number of database files mappings are spread over; 1 keeps the single
+ *                        {@code uuid-mappings.db}, more use a {@link ShardedUuidStore}
+ */
+public record SqliteOptions(int readConnections, String synchronous, long mmapSizeBytes, int shards) {
+
+    public static final SqliteOptions DEFAULT = new SqliteOptions(4, "NORMAL", 256L * 1024 * 1024, 1);
+
+    public SqliteOptions {
+        readConnections = Math.max(1, readConnections);
+        synchronous = synchronous.trim().toUpperCase(java.util.Locale.ROOT);
+        if (!synchronous.matches("OFF|NORMAL|FULL|EXTRA")) {
+            throw new IllegalArgumentException("Unknown synchronous mode: " + synchronous);
+        }
+        mmapSizeBytes = Math.max(0, mmapSizeBytes);
+        shards = Math.max(1, shards);
+    }
+
+    public SqliteOptions withShards(int shards) {
+        return new SqliteOptions(readConnections, synchronous, mmapSizeBytes, shards);
+    }
+}
@@ -0,0 +1,667 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import org.slf4j.Logger;
+
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * SQLite-backed store. Current mappings live in {@code uuid_mappings}; triggers append every
+ * new or changed mapping to {@code uuid_name_history}. Both are indexed by UUID for reverse lookups.
+ *
+ * <p>The database runs in WAL mode. All writes go through one writer connection, serialized on
+ * this store; reads borrow one of a small pool of read-only connections with their statements
+ * prepared once, so concurrent lookups proceed in parallel and are not blocked by a commit.</p>
+ */
+public class SqliteUuidStore implements UuidStore {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO uuid_mappings (username, uuid_msb, uuid_lsb, last_updated)
+            VALUES (?, ?, ?, CURRENT_TIMESTAMP)
+            ON CONFLICT(username) DO UPDATE SET
+                uuid_msb = excluded.uuid_msb,
+                uuid_lsb = excluded.uuid_lsb,
+                last_updated = CURRENT_TIMESTAMP
+            """;
+
+    // Keeps a stored UUID as it is; inserts the mapping only if the row has gone missing
+    private static final String TOUCH_SQL = """
+            INSERT INTO uuid_mappings (username, uuid_msb, uuid_lsb, last_updated)
+            VALUES (?, ?, ?, CURRENT_TIMESTAMP)
+            ON CONFLICT(username) DO UPDATE SET last_updated = CURRENT_TIMESTAMP
+            """;
+
+    private static final String USERNAMES_BY_UUID_SQL =
+            "SELECT username FROM uuid_mappings WHERE uuid_msb = ? AND uuid_lsb = ? ORDER BY username";
+
+    private static final String CHANGED_SINCE_SQL =
+            "SELECT username, uuid_msb, uuid_lsb FROM uuid_name_history WHERE changed_at >= ? ORDER BY changed_at, id";
+
+    private static final String HISTORY_BY_UUID_SQL =
+            "SELECT username, changed_at FROM uuid_name_history WHERE uuid_msb = ? AND uuid_lsb = ? ORDER BY changed_at, id";
+
+    // Milliseconds since the epoch, evaluated inside SQLite so the triggers need no parameters.
+    // julianday() works on every SQLite version; unixepoch() needs 3.38, its 'subsec' modifier 3.42
+    private static final String NOW_MILLIS = millisSinceEpoch("'now'");
+
+    /**
+     * Current schema version, stored in {@code PRAGMA user_version}.
+     * Version 1 stored the UUID as TEXT; version 2 stores it as two INTEGER columns;
+     * version 3 adds the UUID index and the name history; version 4 indexes the history by change time;
+     * version 5 recreates the history triggers so they no longer call unixepoch().
+     */
+    static final int SCHEMA_VERSION = 5;
+    private static final int INTEGER_UUID_SCHEMA_VERSION = 2;
+    private static final int NAME_HISTORY_SCHEMA_VERSION = 3;
+    private static final int PORTABLE_TRIGGERS_SCHEMA_VERSION = 5;
+
+    // Stay well below SQLite's default host parameter limit
+    private static final int MAX_BULK_PARAMETERS = 500;
+    private static final int MIGRATION_CHUNK_SIZE = 10000;
+
+    private static final String GET_SQL = "SELECT uuid_msb, uuid_lsb FROM uuid_mappings WHERE username = ?";
+
+    // SQLITE_OPEN_READONLY
+    private static final String READ_ONLY_OPEN_MODE = "1";
+    private static final int BUSY_TIMEOUT_MS = 5000;
+    private static final long READER_WAIT_MS = 10000;
+
+    private final Path dbPath;
+    private final Logger logger;
+    private final SqliteOptions options;
+    private Connection writer;
+    private PreparedStatement upsert;
+    private PreparedStatement touch;
+    private final List<ReadConnection> readConnections = new ArrayList<>();
+    private BlockingQueue<ReadConnection> idleReaders;
+
+    public SqliteUuidStore(Path dbPath, Logger logger) {
+        this(dbPath, logger, SqliteOptions.DEFAULT);
+    }
+
+    public SqliteUuidStore(Path dbPath, Logger logger, SqliteOptions options) {
+        this.dbPath = dbPath;
+        this.logger = logger;
+        this.options = options;
+    }
+
+    @Override
+    public void initialize() throws SQLException {
+        // Explicitly load SQLite JDBC driver for plugin classloader compatibility
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("SQLite JDBC driver not found in classpath", e);
+        }
+        
+        String jdbcUrl = "jdbc:sqlite:" + dbPath.toString();
+        
+        writer = DriverManager.getConnection(jdbcUrl);
+        try (Statement stmt = writer.createStatement()) {
+            // WAL is persistent in the database file; readers never block on the writer
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = " + options.synchronous());
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+            stmt.execute("PRAGMA mmap_size = " + options.mmapSizeBytes());
+        }
+        createTables();
+        upsert = writer.prepareStatement(UPSERT_SQL);
+        touch = writer.prepareStatement(TOUCH_SQL);
+        
+        // Read connections are opened after the schema is current, so their statements prepare cleanly
+        Properties readOnly = new Properties();
+        readOnly.setProperty("open_mode", READ_ONLY_OPEN_MODE);
+        idleReaders = new ArrayBlockingQueue<>(options.readConnections());
+        for (int i = 0; i < options.readConnections(); i++) {
+            ReadConnection reader = new ReadConnection(DriverManager.getConnection(jdbcUrl, readOnly), options.mmapSizeBytes());
+            readConnections.add(reader);
+            idleReaders.add(reader);
+        }
+        
+        logger.info("UUID storage initialized at: {} (WAL, {} read connections)", dbPath, options.readConnections());
+    }
+
+    private ReadConnection acquireReader() throws SQLException {
+        try {
+            ReadConnection reader = idleReaders.poll(READER_WAIT_MS, TimeUnit.MILLISECONDS);
+            if (reader == null) {
+                throw new SQLException("No read connection became available within " + READER_WAIT_MS + " ms");
+            }
+            return reader;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a read connection", e);
+        }
+    }
+
+    private void releaseReader(ReadConnection reader) {
+        idleReaders.offer(reader);
+    }
+
+    private void createTables() throws SQLException {
+        int version = getSchemaVersion();
+        if (version == SCHEMA_VERSION) {
+            return;
+        }
+        if (version > SCHEMA_VERSION) {
+            throw new SQLException("Database schema version " + version + " is newer than supported version " + SCHEMA_VERSION);
+        }
+        
+        if (!tableExists("uuid_mappings")) {
+            try (Statement stmt = writer.createStatement()) {
+                stmt.execute(createTableSql("uuid_mappings"));
+                stmt.execute("PRAGMA user_version = " + INTEGER_UUID_SCHEMA_VERSION);
+            }
+        } else if (version < INTEGER_UUID_SCHEMA_VERSION) {
+            migrateFromTextSchema();
+        }
+        if (version < NAME_HISTORY_SCHEMA_VERSION) {
+            addNameHistory();
+        }
+        try (Statement stmt = writer.createStatement()) {
+            if (version >= NAME_HISTORY_SCHEMA_VERSION && version < PORTABLE_TRIGGERS_SCHEMA_VERSION) {
+                createHistoryTriggers(stmt);
+            }
+            // Lets a snapshot restore replay only the changes made after it was written
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_uuid_name_history_changed_at ON uuid_name_history (changed_at)");
+            stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+        }
+    }
+
+    /**
+     * Upgrade a version 2 database: index mappings by UUID, create the history table and the
+     * triggers that fill it, and seed it with one entry per existing mapping.
+     */
+    private void addNameHistory() throws SQLException {
+        long start = System.currentTimeMillis();
+        writer.setAutoCommit(false);
+        try (Statement stmt = writer.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_uuid_mappings_uuid ON uuid_mappings (uuid_msb, uuid_lsb)");
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS uuid_name_history (
+                        id INTEGER PRIMARY KEY,
+                        username TEXT NOT NULL,
+                        uuid_msb INTEGER NOT NULL,
+                        uuid_lsb INTEGER NOT NULL,
+                        changed_at INTEGER NOT NULL
+                    )
+                    """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_uuid_name_history_uuid ON uuid_name_history (uuid_msb, uuid_lsb, changed_at)");
+            
+            // Existing rows have no history yet; their last update is the best known change time
+            int seeded = stmt.executeUpdate("""
+                    INSERT INTO uuid_name_history (username, uuid_msb, uuid_lsb, changed_at)
+                    SELECT username, uuid_msb, uuid_lsb, COALESCE(%s, %s)
+                    FROM uuid_mappings
+                    """.formatted(millisSinceEpoch("last_updated"), NOW_MILLIS));
+            
+            createHistoryTriggers(stmt);
+            stmt.execute("PRAGMA user_version = " + NAME_HISTORY_SCHEMA_VERSION);
+            writer.commit();
+            
+            if (seeded > 0) {
+                logger.info("Indexed {} UUID mappings and seeded the name history in {} ms",
+                        seeded, System.currentTimeMillis() - start);
+            }
+        } catch (SQLException e) {
+            writer.rollback();
+            throw e;
+        } finally {
+            writer.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * (Re)create the triggers that append to the name history whenever a mapping is inserted
+     * or its UUID changes.
+     */
+    private static void createHistoryTriggers(Statement stmt) throws SQLException {
+        stmt.execute("DROP TRIGGER IF EXISTS uuid_mappings_history_insert");
+        stmt.execute("DROP TRIGGER IF EXISTS uuid_mappings_history_update");
+        stmt.execute("""
+                CREATE TRIGGER uuid_mappings_history_insert AFTER INSERT ON uuid_mappings
+                BEGIN
+                    INSERT INTO uuid_name_history (username, uuid_msb, uuid_lsb, changed_at)
+                    VALUES (NEW.username, NEW.uuid_msb, NEW.uuid_lsb, %s);
+                END
+                """.formatted(NOW_MILLIS));
+        stmt.execute("""
+                CREATE TRIGGER uuid_mappings_history_update AFTER UPDATE OF uuid_msb, uuid_lsb ON uuid_mappings
+                WHEN OLD.uuid_msb != NEW.uuid_msb OR OLD.uuid_lsb != NEW.uuid_lsb
+                BEGIN
+                    INSERT INTO uuid_name_history (username, uuid_msb, uuid_lsb, changed_at)
+                    VALUES (NEW.username, NEW.uuid_msb, NEW.uuid_lsb, %s);
+                END
+                """.formatted(NOW_MILLIS));
+    }
+
+    /**
+     * SQL for a time value, such as {@code 'now'} or a TIMESTAMP column, as epoch milliseconds.
+     * 2440587.5 is the Julian day number of 1970-01-01 00:00 UTC.
+     */
+    private static String millisSinceEpoch(String time) {
+        return "CAST((julianday(" + time + ") - 2440587.5) * 86400000 AS INTEGER)";
+    }
+
+    private static String createTableSql(String table) {
+        return """
+                CREATE TABLE IF NOT EXISTS %s (
+                    username TEXT PRIMARY KEY,
+                    uuid_msb INTEGER NOT NULL,
+                    uuid_lsb INTEGER NOT NULL,
+                    last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+                """.formatted(table);
+    }
+
+    private int getSchemaVersion() throws SQLException {
+        try (Statement stmt = writer.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        String sql = "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?";
+        try (PreparedStatement stmt = writer.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Convert a version 1 table (TEXT uuid) to version 2 (two INTEGER columns).
+     * Rows are copied in username order in chunks of {@value #MIGRATION_CHUNK_SIZE},
+     * each committed separately, so an interrupted migration resumes where it stopped.
+     */
+    private void migrateFromTextSchema() throws SQLException {
+        logger.info("Migrating UUID database to schema version {}...", INTEGER_UUID_SCHEMA_VERSION);
+        long start = System.currentTimeMillis();
+        
+        try (Statement stmt = writer.createStatement()) {
+            stmt.execute(createTableSql("uuid_mappings_v2"));
+        }
+        
+        String resumeSql = "SELECT MAX(username) FROM uuid_mappings_v2";
+        String selectSql = "SELECT username, uuid, last_updated FROM uuid_mappings WHERE username > ? ORDER BY username LIMIT ?";
+        String insertSql = "INSERT OR REPLACE INTO uuid_mappings_v2 (username, uuid_msb, uuid_lsb, last_updated) VALUES (?, ?, ?, ?)";
+        
+        String lastUsername = "";
+        try (Statement stmt = writer.createStatement();
+             ResultSet rs = stmt.executeQuery(resumeSql)) {
+            if (rs.next() && rs.getString(1) != null) {
+                lastUsername = rs.getString(1);
+                logger.info("Resuming interrupted migration after '{}'", lastUsername);
+            }
+        }
+        
+        long migrated = 0;
+        long skipped = 0;
+        writer.setAutoCommit(false);
+        try (PreparedStatement select = writer.prepareStatement(selectSql);
+             PreparedStatement insert = writer.prepareStatement(insertSql)) {
+            while (true) {
+                select.setString(1, lastUsername);
+                select.setInt(2, MIGRATION_CHUNK_SIZE);
+                int rows = 0;
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        lastUsername = rs.getString("username");
+                        UUID uuid;
+                        try {
+                            uuid = UUID.fromString(rs.getString("uuid"));
+                        } catch (IllegalArgumentException e) {
+                            logger.warn("Skipping invalid stored UUID '{}' for player {}", rs.getString("uuid"), lastUsername);
+                            skipped++;
+                            continue;
+                        }
+                        insert.setString(1, lastUsername);
+                        insert.setLong(2, uuid.getMostSignificantBits());
+                        insert.setLong(3, uuid.getLeastSignificantBits());
+                        insert.setString(4, rs.getString("last_updated"));
+                        insert.addBatch();
+                        migrated++;
+                    }
+                }
+                insert.executeBatch();
+                writer.commit();
+                if (rows < MIGRATION_CHUNK_SIZE) {
+                    break;
+                }
+                logger.info("Migrated {} UUID mappings so far...", migrated);
+            }
+            
+            // Swap the tables atomically
+            try (Statement stmt = writer.createStatement()) {
+                stmt.execute("DROP TABLE uuid_mappings");
+                stmt.execute("ALTER TABLE uuid_mappings_v2 RENAME TO uuid_mappings");
+                stmt.execute("PRAGMA user_version = " + INTEGER_UUID_SCHEMA_VERSION);
+            }
+            writer.commit();
+        } catch (SQLException e) {
+            writer.rollback();
+            throw e;
+        } finally {
+            writer.setAutoCommit(true);
+        }
+        
+        // Reclaim the space freed by the old TEXT table
+        try (Statement stmt = writer.createStatement()) {
+            stmt.execute("VACUUM");
+        }
+        
+        logger.info("Migrated {} UUID mappings to schema version {} in {} ms ({} invalid rows skipped)",
+                migrated, INTEGER_UUID_SCHEMA_VERSION, System.currentTimeMillis() - start, skipped);
+    }
+
+    @Override
+    public UUID get(String username) throws SQLException {
+        ReadConnection reader = acquireReader();
+        try {
+            PreparedStatement stmt = reader.get;
+            stmt.setString(1, username);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new UUID(rs.getLong(1), rs.getLong(2));
+                }
+            }
+            return null;
+        } finally {
+            releaseReader(reader);
+        }
+    }
+
+    @Override
+    public Map<String, UUID> getAll(Collection<String> usernames) throws SQLException {
+        Map<String, UUID> result = new HashMap<>();
+        List<String> pending = new ArrayList<>(usernames);
+        
+        ReadConnection reader = acquireReader();
+        try {
+            getAll(reader.connection, pending, result);
+        } finally {
+            releaseReader(reader);
+        }
+        return result;
+    }
+
+    private static void getAll(Connection connection, List<String> pending, Map<String, UUID> result) throws SQLException {
+        for (int start = 0; start < pending.size(); start += MAX_BULK_PARAMETERS) {
+            List<String> chunk = pending.subList(start, Math.min(pending.size(), start + MAX_BULK_PARAMETERS));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT username, uuid_msb, uuid_lsb FROM uuid_mappings WHERE username IN (" + placeholders + ")";
+            
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        result.put(rs.getString(1), new UUID(rs.getLong(2), rs.getLong(3)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void put(String username, UUID uuid) throws SQLException {
+        upsert.setString(1, username);
+        upsert.setLong(2, uuid.getMostSignificantBits());
+        upsert.setLong(3, uuid.getLeastSignificantBits());
+        upsert.executeUpdate();
+    }
+
+    @Override
+    public synchronized void putAll(List<UuidMapping> mappings) throws SQLException {
+        if (mappings.isEmpty()) {
+            return;
+        }
+        
+        boolean autoCommit = writer.getAutoCommit();
+        writer.setAutoCommit(false);
+        try {
+            for (UuidMapping mapping : mappings) {
+                upsert.setString(1, mapping.username());
+                upsert.setLong(2, mapping.uuid().getMostSignificantBits());
+                upsert.setLong(3, mapping.uuid().getLeastSignificantBits());
+                upsert.addBatch();
+            }
+            upsert.executeBatch();
+            writer.commit();
+        } catch (SQLException e) {
+            upsert.clearBatch();
+            writer.rollback();
+            throw e;
+        } finally {
+            writer.setAutoCommit(autoCommit);
+        }
+    }
+
+    @Override
+    public synchronized void touchAll(Collection<UuidMapping> mappings) throws SQLException {
+        if (mappings.isEmpty()) {
+            return;
+        }
+        
+        boolean autoCommit = writer.getAutoCommit();
+        writer.setAutoCommit(false);
+        try {
+            for (UuidMapping mapping : mappings) {
+                touch.setString(1, mapping.username());
+                touch.setLong(2, mapping.uuid().getMostSignificantBits());
+                touch.setLong(3, mapping.uuid().getLeastSignificantBits());
+                touch.addBatch();
+            }
+            touch.executeBatch();
+            writer.commit();
+        } catch (SQLException e) {
+            touch.clearBatch();
+            writer.rollback();
+            throw e;
+        } finally {
+            writer.setAutoCommit(autoCommit);
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, UUID> action) throws SQLException {
+        String sql = "SELECT username, uuid_msb, uuid_lsb FROM uuid_mappings";
+        
+        ReadConnection reader = acquireReader();
+        try (Statement stmt = reader.connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                action.accept(rs.getString(1), new UUID(rs.getLong(2), rs.getLong(3)));
+            }
+        } finally {
+            releaseReader(reader);
+        }
+    }
+
+    @Override
+    public long count() throws SQLException {
+        ReadConnection reader = acquireReader();
+        try (Statement stmt = reader.connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM uuid_mappings")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } finally {
+            releaseReader(reader);
+        }
+    }
+
+    /**
+     * Splits the table into contiguous rowid ranges, each streamed on its own read connection.
+     */
+    @Override
+    public void forEachInPartition(int partition, int partitions, BiConsumer<String, UUID> action) throws SQLException {
+        ReadConnection reader = acquireReader();
+        try {
+            long minRowId;
+            long maxRowId;
+            try (Statement stmt = reader.connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MIN(rowid), MAX(rowid) FROM uuid_mappings")) {
+                if (!rs.next() || rs.getObject(1) == null) {
+                    return;
+                }
+                minRowId = rs.getLong(1);
+                maxRowId = rs.getLong(2);
+            }
+            
+            long span = (maxRowId - minRowId) / partitions + 1;
+            long from = minRowId + span * partition;
+            String sql = "SELECT username, uuid_msb, uuid_lsb FROM uuid_mappings WHERE rowid >= ? AND rowid < ?";
+            try (PreparedStatement stmt = reader.connection.prepareStatement(sql)) {
+                stmt.setLong(1, from);
+                stmt.setLong(2, from + span);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(rs.getString(1), new UUID(rs.getLong(2), rs.getLong(3)));
+                    }
+                }
+            }
+        } finally {
+            releaseReader(reader);
+        }
+    }
+
+    /**
+     * Streams in primary key order, which SQLite reads straight from the username index.
+     */
+    @Override
+    public void forEachInUsernameOrder(BiConsumer<String, UUID> action) throws SQLException {
+        String sql = "SELECT username, uuid_msb, uuid_lsb FROM uuid_mappings ORDER BY username";
+        
+        ReadConnection reader = acquireReader();
+        try (Statement stmt = reader.connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                action.accept(rs.getString(1), new UUID(rs.getLong(2), rs.getLong(3)));
+            }
+        } finally {
+            releaseReader(reader);
+        }
+    }
+
+    @Override
+    public boolean tracksChanges() {
+        return true;
+    }
+
+    /**
+     * Reads the name history, which the triggers append to only when a mapping actually changes.
+     */
+    @Override
+    public void forEachChangedSince(long epochMillis, BiConsumer<String, UUID> action) throws SQLException {
+        ReadConnection reader = acquireReader();
+        try (PreparedStatement stmt = reader.connection.prepareStatement(CHANGED_SINCE_SQL)) {
+            stmt.setLong(1, epochMillis);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(rs.getString(1), new UUID(rs.getLong(2), rs.getLong(3)));
+                }
+            }
+        } finally {
+            releaseReader(reader);
+        }
+    }
+
+    @Override
+    public List<String> getUsernames(UUID uuid) throws SQLException {
+        List<String> usernames = new ArrayList<>();
+        ReadConnection reader = acquireReader();
+        try {
+            PreparedStatement stmt = reader.usernamesByUuid;
+            stmt.setLong(1, uuid.getMostSignificantBits());
+            stmt.setLong(2, uuid.getLeastSignificantBits());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    usernames.add(rs.getString(1));
+                }
+            }
+        } finally {
+            releaseReader(reader);
+        }
+        return usernames;
+    }
+
+    @Override
+    public List<NameChange> getNameHistory(UUID uuid) throws SQLException {
+        List<NameChange> history = new ArrayList<>();
+        ReadConnection reader = acquireReader();
+        try {
+            PreparedStatement stmt = reader.historyByUuid;
+            stmt.setLong(1, uuid.getMostSignificantBits());
+            stmt.setLong(2, uuid.getLeastSignificantBits());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    history.add(new NameChange(rs.getString(1), uuid, Instant.ofEpochMilli(rs.getLong(2))));
+                }
+            }
+        } finally {
+            releaseReader(reader);
+        }
+        return history;
+    }
+
+    @Override
+    public void close() {
+        for (ReadConnection reader : readConnections) {
+            reader.close();
+        }
+        readConnections.clear();
+        if (writer != null) {
+            try {
+                writer.close();
+                logger.info("UUID storage closed successfully");
+            } catch (SQLException e) {
+                logger.error("Failed to close database connection", e);
+            }
+        }
+    }
+
+    /**
+     * A read-only connection with its hot statements prepared once.
+     * Used by one thread at a time while borrowed from the pool.
+     */
+    private static final class ReadConnection {
+        private final Connection connection;
+        private final PreparedStatement get;
+        private final PreparedStatement usernamesByUuid;
+        private final PreparedStatement historyByUuid;
+
+        private ReadConnection(Connection connection, long mmapSizeBytes) throws SQLException {
+            this.connection = connection;
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+                stmt.execute("PRAGMA mmap_size = " + mmapSizeBytes);
+            }
+            this.get = connection.prepareStatement(GET_SQL);
+            this.usernamesByUuid = connection.prepareStatement(USERNAMES_BY_UUID_SQL);
+            this.historyByUuid = connection.prepareStatement(HISTORY_BY_UUID_SQL);
+        }
+
+        private void close() {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+}
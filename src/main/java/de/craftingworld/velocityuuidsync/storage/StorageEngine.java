@@ -0,0 +1,59 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Available {@link UuidStore} implementations, selected via {@code storage-engine} in config.properties.
+ */
+public enum StorageEngine {
+    SQLITE,
+    MEMORY,
+    LOG,
+    MMAP;
+
+    public UuidStore create(Path dataDirectory, Logger logger) {
+        return create(dataDirectory, logger, SqliteOptions.DEFAULT);
+    }
+
+    public UuidStore create(Path dataDirectory, Logger logger, SqliteOptions sqliteOptions) {
+        return switch (this) {
+            case SQLITE -> sqliteOptions.shards() > 1
+                    ? new ShardedUuidStore(dataDirectory, logger, sqliteOptions)
+                    : singleFileStore(dataDirectory, logger, sqliteOptions);
+            case MEMORY -> new InMemoryUuidStore();
+            case LOG -> new LogFileUuidStore(dataDirectory.resolve("uuid-mappings.log"), logger);
+            case MMAP -> new MappedLogUuidStore(dataDirectory.resolve("uuid-segments"), logger);
+        };
+    }
+
+    /**
+     * The unsharded store, unless shards are still on disk: opening an empty single file
+     * next to them would silently hide every sharded mapping.
+     */
+    private static UuidStore singleFileStore(Path dataDirectory, Logger logger, SqliteOptions sqliteOptions) {
+        Path shardDirectory = dataDirectory.resolve(ShardedUuidStore.SHARD_DIRECTORY);
+        int recorded;
+        try {
+            recorded = ShardedUuidStore.readShardCount(shardDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the shard count in " + shardDirectory, e);
+        }
+        if (recorded != 0) {
+            throw ShardedUuidStore.shardCountMismatch(shardDirectory, recorded, 1);
+        }
+        return new SqliteUuidStore(dataDirectory.resolve(ShardedUuidStore.SINGLE_FILE), logger, sqliteOptions);
+    }
+
+    public static StorageEngine fromName(String name) {
+        for (StorageEngine engine : values()) {
+            if (engine.name().equalsIgnoreCase(name.trim())) {
+                return engine;
+            }
+        }
+        throw new IllegalArgumentException("Unknown storage engine: " + name);
+    }
+}
@@ -0,0 +1,10 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import java.util.UUID;
+
+/**
+ * A single username -> UUID mapping, as passed through write batches, last-updated
+ * touches and replication.
+ */
+public record UuidMapping(String username, UUID uuid) {
+}
@@ -0,0 +1,122 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Storage backend for username -> UUID mappings.
+ * Usernames passed to a store are already lowercased by {@code UuidStorageManager}.
+ */
+public interface UuidStore {
+
+    /**
+     * Open the underlying storage. Called once before any other method.
+     */
+    void initialize() throws Exception;
+
+    /**
+     * Look up the UUID stored for a username, or {@code null} if there is none.
+     */
+    UUID get(String username) throws Exception;
+
+    /**
+     * Look up several usernames at once. Usernames without a mapping are absent from the result.
+     */
+    Map<String, UUID> getAll(Collection<String> usernames) throws Exception;
+
+    /**
+     * Insert or replace the mapping for a username.
+     */
+    void put(String username, UUID uuid) throws Exception;
+
+    /**
+     * Insert or replace a batch of mappings, atomically where the engine supports it.
+     */
+    void putAll(List<UuidMapping> mappings) throws Exception;
+
+    /**
+     * Refresh the last-seen time of mappings believed to be stored, without changing them.
+     * A mapping that turns out to be missing is inserted. Engines that do not record a
+     * last-seen time ignore this.
+     */
+    default void touchAll(Collection<UuidMapping> mappings) throws Exception {
+    }
+
+    /**
+     * Visit every stored mapping.
+     */
+    void forEach(BiConsumer<String, UUID> action) throws Exception;
+
+    /**
+     * The number of stored mappings. Engines that cannot count cheaply fall back to a full scan.
+     */
+    default long count() throws Exception {
+        long[] count = new long[1];
+        forEach((username, uuid) -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Visit one of {@code partitions} disjoint parts of the stored mappings. Different
+     * partitions may be read concurrently; together they cover every mapping once.
+     * Engines that cannot split their data return everything from partition 0.
+     */
+    default void forEachInPartition(int partition, int partitions, BiConsumer<String, UUID> action) throws Exception {
+        if (partition == 0) {
+            forEach(action);
+        }
+    }
+
+    /**
+     * Like {@link #forEach}, but in ascending username order where the engine can stream it
+     * that way without buffering. Callers may only rely on the order as a hint.
+     */
+    default void forEachInUsernameOrder(BiConsumer<String, UUID> action) throws Exception {
+        forEach(action);
+    }
+
+    /**
+     * Whether {@link #forEachChangedSince} reads only recent changes. Snapshots are skipped for
+     * engines that do not: replaying a full scan on top of one saves nothing.
+     */
+    default boolean tracksChanges() {
+        return false;
+    }
+
+    /**
+     * Visit the mappings created or changed at or after {@code epochMillis}, oldest change first,
+     * so the last visit of a username carries its current UUID. Engines that keep no change
+     * times visit every mapping.
+     */
+    default void forEachChangedSince(long epochMillis, BiConsumer<String, UUID> action) throws Exception {
+        forEach(action);
+    }
+
+    /**
+     * Find every username currently mapped to a UUID. Engines without a reverse
+     * index fall back to a full scan.
+     */
+    default List<String> getUsernames(UUID uuid) throws Exception {
+        List<String> usernames = new ArrayList<>();
+        forEach((username, stored) -> {
+            if (stored.equals(uuid)) {
+                usernames.add(username);
+            }
+        });
+        return usernames;
+    }
+
+    /**
+     * Every recorded change that pointed a username at this UUID, oldest first.
+     * Engines that keep no history return an empty list.
+     */
+    default List<NameChange> getNameHistory(UUID uuid) throws Exception {
+        return List.of();
+    }
+
+    void close();
+}
@@ -0,0 +1,7 @@
+package net.kyori.adventure.audience;
+
+import net.kyori.adventure.text.Component;
+
+public interface Audience {
+    void sendMessage(Component message);
+}
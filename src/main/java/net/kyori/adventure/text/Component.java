@@ -0,0 +1,9 @@
+package net.kyori.adventure.text;
+
+public interface Component {
+    String content();
+
+    static Component text(String content) {
+        return () -> content;
+    }
+}
@@ -0,0 +1,101 @@
+package com.chaosgaming.velocityuuidforwarder.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForwardingKeyRingTest {
+
+    /**
+     * HMAC-SHA256 signature followed by the payload, as Velocity sends it
+     */
+    static ByteBuf signed(String secret, byte[] payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeBytes(mac.doFinal(payload));
+        buf.writeBytes(payload);
+        return buf;
+    }
+
+    private static boolean verify(ForwardingKeyRing ring, ByteBuf buf) {
+        return ring.verify(buf, 0, ForwardingSignatureVerifier.SIGNATURE_LENGTH,
+                buf.readableBytes() - ForwardingSignatureVerifier.SIGNATURE_LENGTH);
+    }
+
+    @Test
+    void acceptsASignatureFromAnyKey() throws Exception {
+        ForwardingKeyRing ring = ForwardingKeyRing.forSecrets(List.of("oldSecret", "newSecret"));
+        byte[] payload = "payload".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(verify(ring, signed("oldSecret", payload)));
+        assertTrue(verify(ring, signed("newSecret", payload)));
+        assertFalse(verify(ring, signed("otherSecret", payload)));
+    }
+
+    @Test
+    void lastMatchingKeyIsPreferred() throws Exception {
+        ForwardingKeyRing ring = ForwardingKeyRing.forSecrets(List.of("firstSecret", "secondSecret"));
+        assertTrue(verify(ring, signed("secondSecret", new byte[]{1, 2, 3})));
+
+        List<String> lines = ring.summaryLines();
+        assertFalse(lines.get(0).contains("[preferred]"));
+        assertTrue(lines.get(1).endsWith("matches=1 [preferred]"), lines.get(1));
+        // Only a short fingerprint is shown, never the secret
+        assertFalse(String.join("\n", lines).contains("Secret"));
+    }
+
+    @Test
+    void unchangedSecretsReuseTheRing() {
+        ForwardingKeyRing ring = ForwardingKeyRing.forSecrets(List.of("sameSecret"));
+        assertSame(ring, ForwardingKeyRing.forSecrets(List.of("sameSecret")));
+        assertNotSame(ring, ForwardingKeyRing.forSecrets(List.of("sameSecret", "addedSecret")));
+    }
+
+    @Test
+    void reloadKeepsCountsOfSurvivingKeys() throws Exception {
+        ForwardingKeyRing ring = ForwardingKeyRing.forSecrets(List.of("keptSecret"));
+        assertTrue(verify(ring, signed("keptSecret", new byte[]{4})));
+
+        ForwardingKeyRing reloaded = ForwardingKeyRing.forSecrets(List.of("addedSecret", "keptSecret"));
+        assertTrue(reloaded.summaryLines().get(1).contains("matches=1"), reloaded.summaryLines().get(1));
+    }
+
+    @Test
+    void emptyRingAcceptsNothing() throws Exception {
+        ForwardingKeyRing ring = ForwardingKeyRing.forSecrets(List.of());
+        assertTrue(ring.isEmpty());
+        assertFalse(verify(ring, signed("anySecret", new byte[]{5})));
+    }
+
+    @Test
+    void readForwardingDataChecksTheSignatureFirst() throws Exception {
+        ByteBuf body = Unpooled.buffer();
+        VelocityMessageUtilTest.writeVarInt(body, 1);
+        VelocityMessageUtilTest.writeString(body, "203.0.113.42");
+        body.writeLong(1L);
+        body.writeLong(2L);
+        VelocityMessageUtilTest.writeString(body, "Notch");
+        VelocityMessageUtilTest.writeVarInt(body, 0);
+        byte[] payload = new byte[body.readableBytes()];
+        body.readBytes(payload);
+        ForwardingKeyRing ring = ForwardingKeyRing.forSecrets(List.of("realSecret"));
+
+        assertEquals("Notch", VelocityMessageUtil.readForwardingData(signed("realSecret", payload), ring).getUsername());
+        ByteBuf forged = signed("forgedSecret", payload);
+        assertThrows(SecurityException.class, () -> VelocityMessageUtil.readForwardingData(forged, ring));
+        assertEquals(0, forged.readerIndex());
+    }
+}
@@ -0,0 +1,81 @@
+package com.chaosgaming.velocityuuidforwarder.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForwardingSignatureVerifierTest {
+
+    private static final String SECRET = "EgAbmtTT4qGk";
+
+    private static boolean verify(ForwardingSignatureVerifier verifier, ByteBuf buf) {
+        return verifier.verify(buf, 0, ForwardingSignatureVerifier.SIGNATURE_LENGTH,
+                buf.readableBytes() - ForwardingSignatureVerifier.SIGNATURE_LENGTH);
+    }
+
+    @Test
+    void acceptsTheSignatureOfItsSecretOnly() throws Exception {
+        byte[] payload = "forwarding payload".getBytes(StandardCharsets.UTF_8);
+        assertTrue(verify(new ForwardingSignatureVerifier(SECRET), ForwardingKeyRingTest.signed(SECRET, payload)));
+        assertFalse(verify(new ForwardingSignatureVerifier("otherSecret"), ForwardingKeyRingTest.signed(SECRET, payload)));
+    }
+
+    @Test
+    void rejectsAnyChangedByte() throws Exception {
+        ForwardingSignatureVerifier verifier = new ForwardingSignatureVerifier(SECRET);
+        ByteBuf buf = ForwardingKeyRingTest.signed(SECRET, new byte[64]);
+        for (int i = 0; i < buf.readableBytes(); i++) {
+            buf.setByte(i, buf.getByte(i) ^ 0x01);
+            assertFalse(verify(verifier, buf), "byte " + i);
+            buf.setByte(i, buf.getByte(i) ^ 0x01);
+        }
+        // A failed check leaves the Mac clean for the next handshake
+        assertTrue(verify(verifier, buf));
+    }
+
+    @Test
+    void readsOnlyTheGivenRange() throws Exception {
+        ForwardingSignatureVerifier verifier = new ForwardingSignatureVerifier(SECRET);
+        ByteBuf signed = ForwardingKeyRingTest.signed(SECRET, new byte[]{1, 2, 3});
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeBytes(new byte[]{9, 9});
+        buf.writeBytes(signed);
+        buf.writeBytes(new byte[]{9, 9});
+
+        assertTrue(verifier.verify(buf, 2, 2 + ForwardingSignatureVerifier.SIGNATURE_LENGTH, 3));
+    }
+
+    @Test
+    void sharedVerifierWorksOnManyThreads() throws Exception {
+        ForwardingSignatureVerifier verifier = new ForwardingSignatureVerifier(SECRET);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int task = 0; task < 64; task++) {
+                byte[] payload = ("payload " + task).getBytes(StandardCharsets.UTF_8);
+                results.add(executor.submit(() -> {
+                    boolean valid = true;
+                    for (int i = 0; i < 200; i++) {
+                        valid &= verify(verifier, ForwardingKeyRingTest.signed(SECRET, payload));
+                    }
+                    return valid;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.chaosgaming.velocityuuidforwarder.util;
+
+import com.mojang.authlib.GameProfile;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VelocityMessageUtilTest {
+
+    private static final UUID PLAYER_UUID = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+
+    /**
+     * Unsigned payload body: version, address, UUID, name, one textures property, then the
+     * sections of the given version.
+     */
+    private static ByteBuf body(int version, boolean withSigner) {
+        ByteBuf buf = Unpooled.buffer();
+        writeVarInt(buf, version);
+        writeString(buf, "203.0.113.42");
+        buf.writeLong(PLAYER_UUID.getMostSignificantBits());
+        buf.writeLong(PLAYER_UUID.getLeastSignificantBits());
+        writeString(buf, "Notch");
+        writeVarInt(buf, 1);
+        writeString(buf, "textures");
+        writeString(buf, "dGV4dHVyZXM=");
+        writeString(buf, "c2lnbmF0dXJl");
+        if (version == 2 || version == 3) {
+            buf.writeLong(1_700_000_000_000L);
+            writeByteArray(buf, new byte[294]);
+            writeByteArray(buf, new byte[512]);
+            if (version == 3) {
+                buf.writeBoolean(withSigner);
+                if (withSigner) {
+                    buf.writeLong(1L);
+                    buf.writeLong(2L);
+                }
+            }
+        }
+        return buf;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4})
+    void everyVersionIsParsedToTheEnd(int version) {
+        ByteBuf buf = body(version, true);
+        VelocityMessageUtil.ForwardingData data = VelocityMessageUtil.parseForwardingData(buf);
+
+        assertEquals(ForwardingVersion.fromId(version), data.getVersion());
+        assertEquals("203.0.113.42", data.getAddress());
+        GameProfile profile = data.getProfile();
+        assertEquals(PLAYER_UUID, profile.getId());
+        assertEquals("Notch", profile.getName());
+        assertEquals("c2lnbmF0dXJl", profile.getProperties().get("textures").signature());
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    void keySignerIsOptionalInVersionThree() {
+        ByteBuf buf = body(3, false);
+        VelocityMessageUtil.parseForwardingData(buf);
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 5, 127})
+    void unknownVersionsAreRejected(int version) {
+        UnsupportedForwardingVersionException e = assertThrows(UnsupportedForwardingVersionException.class,
+                () -> VelocityMessageUtil.parseForwardingData(body(version, false)));
+        assertEquals(version, e.getVersion());
+    }
+
+    @Test
+    void truncatedChatKeyIsRejected() {
+        ByteBuf buf = body(2, false);
+        buf.writerIndex(buf.writerIndex() - 100);
+        assertThrows(IllegalStateException.class, () -> VelocityMessageUtil.parseForwardingData(buf));
+    }
+
+    @Test
+    void requestAdvertisesTheHighestParsedVersion() {
+        ByteBuf buf = Unpooled.buffer();
+        VelocityMessageUtil.writeForwardingRequest(buf);
+        assertEquals(1, buf.readableBytes());
+        assertEquals(ForwardingVersion.MAX_SUPPORTED.getId(), buf.readByte());
+        assertEquals(ForwardingVersion.MAX_SUPPORTED, ForwardingVersion.fromId(4));
+    }
+
+    /**
+     * Version 1 header up to and including the username; properties follow.
+     */
+    private static ByteBuf header(String username) {
+        ByteBuf buf = Unpooled.buffer();
+        writeVarInt(buf, 1);
+        writeString(buf, "203.0.113.42");
+        buf.writeLong(PLAYER_UUID.getMostSignificantBits());
+        buf.writeLong(PLAYER_UUID.getLeastSignificantBits());
+        writeString(buf, username);
+        return buf;
+    }
+
+    @Test
+    void unsignedAndMultiBytePropertiesAreDecoded() {
+        ByteBuf buf = header("Jöhn_ßkin");
+        writeVarInt(buf, 2);
+        writeString(buf, "textures");
+        writeString(buf, "x".repeat(300));
+        writeString(buf, "");
+        writeString(buf, "nickname");
+        writeString(buf, "Jöhn ✓");
+        writeString(buf, "");
+
+        GameProfile profile = VelocityMessageUtil.parseForwardingData(buf).getProfile();
+        assertEquals("Jöhn_ßkin", profile.getName());
+        assertEquals("x".repeat(300), profile.getProperties().get("textures").value());
+        assertNull(profile.getProperties().get("textures").signature());
+        assertEquals("Jöhn ✓", profile.getProperties().get("nickname").value());
+    }
+
+    @Test
+    void negativePropertyCountIsRejected() {
+        ByteBuf buf = header("Notch");
+        writeVarInt(buf, -1);
+        assertThrows(IllegalStateException.class, () -> VelocityMessageUtil.parseForwardingData(buf));
+    }
+
+    @Test
+    void lengthPastTheEndIsRejected() {
+        ByteBuf buf = header("Notch");
+        writeVarInt(buf, 1);
+        writeVarInt(buf, 1000);
+        buf.writeBytes(new byte[10]);
+        assertThrows(IllegalStateException.class, () -> VelocityMessageUtil.parseForwardingData(buf));
+    }
+
+    @Test
+    void overlongVarIntIsRejected() {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeBytes(new byte[]{(byte) 0x81, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x00});
+        assertThrows(RuntimeException.class, () -> VelocityMessageUtil.parseForwardingData(buf));
+    }
+
+    @Test
+    void payloadShorterThanASignatureIsRejected() {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeBytes(new byte[ForwardingSignatureVerifier.SIGNATURE_LENGTH]);
+        assertThrows(IllegalStateException.class, () -> VelocityMessageUtil.verifyForwardingData(buf,
+                ForwardingKeyRing.forSecrets(List.of("anySecret"))));
+    }
+
+    static void writeString(ByteBuf buf, String value) {
+        writeByteArray(buf, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static void writeByteArray(ByteBuf buf, byte[] bytes) {
+        writeVarInt(buf, bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    static void writeVarInt(ByteBuf buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+}
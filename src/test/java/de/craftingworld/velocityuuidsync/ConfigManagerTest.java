@@ -0,0 +1,92 @@
+package de.craftingworld.velocityuuidsync;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigManagerTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigManagerTest.class);
+
+    @TempDir
+    Path directory;
+
+    private ConfigManager load(String content) throws Exception {
+        Files.writeString(directory.resolve("config.properties"), content);
+        ConfigManager configManager = new ConfigManager(directory);
+        configManager.loadConfig();
+        return configManager;
+    }
+
+    @Test
+    void offlineModeServersMatchIgnoringCase() throws Exception {
+        ConfigManager.Settings settings = load("offline-mode-servers= Create , Lobby-2,\n").getSettings();
+
+        assertEquals(List.of("create", "lobby-2"), settings.getOfflineModeServers());
+        assertTrue(settings.isOfflineModeServer("create"));
+        assertTrue(settings.isOfflineModeServer("CREATE"));
+        assertTrue(settings.isOfflineModeServer("LOBBY-2"));
+        assertFalse(settings.isOfflineModeServer("lobby"));
+        assertFalse(settings.isOfflineModeServer(""));
+    }
+
+    @Test
+    void defaultConfigIsWrittenOnFirstStart() throws Exception {
+        ConfigManager configManager = new ConfigManager(directory.resolve("new"));
+        configManager.loadConfig();
+
+        assertTrue(Files.exists(directory.resolve("new").resolve("config.properties")));
+        assertTrue(configManager.isOfflineModeServer("Create"));
+        assertEquals(ConfigManager.DEFAULT_CACHE_SIZE, configManager.getCacheSize());
+    }
+
+    @Test
+    void onlyStartupKeysAreReportedAsNeedingARestart() throws Exception {
+        ConfigManager.Settings before = load("debug=false\ncache-size=100\nsqlite-shards=1\nlookup-timeout-ms=500\n").getSettings();
+        ConfigManager.Settings after = load("debug=true\ncache-size=200\nsqlite-shards=4\nlookup-timeout-ms=250\n").getSettings();
+
+        assertEquals(List.of("cache-size", "sqlite-*"), after.restartRequiredChanges(before));
+        assertEquals(List.of(), after.restartRequiredChanges(after));
+        assertEquals(List.of(), after.restartRequiredChanges(null));
+    }
+
+    @Test
+    void editedFileIsReloaded() throws Exception {
+        ConfigManager configManager = load("offline-mode-servers=create\ndebug=false\n");
+        ConfigManager.Settings initial = configManager.getSettings();
+        BlockingQueue<ConfigManager.Settings> reloads = new LinkedBlockingQueue<>();
+        configManager.startWatching(LOGGER, reloads::add);
+        try {
+            // Replaced rather than written in place, as most editors save
+            Path temp = directory.resolve("config.properties.new");
+            Files.writeString(temp, "offline-mode-servers=create,lobby\ndebug=true\n");
+            Files.move(temp, directory.resolve("config.properties"), StandardCopyOption.REPLACE_EXISTING);
+
+            ConfigManager.Settings reloaded = reloads.poll(10, TimeUnit.SECONDS);
+            assertNotNull(reloaded);
+            assertSame(reloaded, configManager.getSettings());
+            assertTrue(reloaded.isDebugEnabled());
+            assertTrue(reloaded.isOfflineModeServer("Lobby"));
+            // The snapshot handed out before the reload does not change
+            assertFalse(initial.isDebugEnabled());
+            assertFalse(initial.isOfflineModeServer("lobby"));
+        } finally {
+            configManager.stopWatching();
+        }
+    }
+}
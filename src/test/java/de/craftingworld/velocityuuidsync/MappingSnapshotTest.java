@@ -0,0 +1,136 @@
+package de.craftingworld.velocityuuidsync;
+
+import de.craftingworld.velocityuuidsync.storage.UuidMapping;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappingSnapshotTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappingSnapshotTest.class);
+
+    @TempDir
+    Path dataDirectory;
+
+    private Map<String, UUID> fill(UuidStorageManager storageManager, int count) throws Exception {
+        Map<String, UUID> expected = new HashMap<>();
+        List<UuidMapping> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Shared prefixes exercise the name compression, the last names are not ASCII
+            String username = i % 10 == 9 ? "spieler_ä" + i : "player" + i;
+            UuidMapping mapping = new UuidMapping(username, UUID.randomUUID());
+            expected.put(username, mapping.uuid());
+            batch.add(mapping);
+        }
+        storageManager.storeUuidMappings(batch);
+        return expected;
+    }
+
+    @Test
+    void writtenSnapshotReadsBackEveryMapping() throws Exception {
+        Path file = dataDirectory.resolve(MappingSnapshot.FILE_NAME);
+        UuidStorageManager storageManager = new UuidStorageManager(dataDirectory, LOGGER);
+        storageManager.initialize();
+        Map<String, UUID> expected;
+        try {
+            expected = fill(storageManager, 300);
+            storageManager.writeSnapshot(file);
+        } finally {
+            storageManager.close();
+        }
+
+        MappingSnapshot snapshot = MappingSnapshot.read(file);
+        assertEquals(expected.size(), snapshot.size());
+        Map<String, UUID> read = new HashMap<>();
+        snapshot.forEach((name, length, msb, lsb) ->
+                read.put(new String(name, 0, length, StandardCharsets.UTF_8), new UUID(msb, lsb)));
+        assertEquals(expected, read);
+    }
+
+    @Test
+    void restoreReplaysChangesMadeAfterTheSnapshot() throws Exception {
+        Path file = dataDirectory.resolve(MappingSnapshot.FILE_NAME);
+        UuidStorageManager storageManager = new UuidStorageManager(dataDirectory, LOGGER);
+        storageManager.initialize();
+        Map<String, UUID> expected;
+        UUID changed = UUID.randomUUID();
+        UUID added = UUID.randomUUID();
+        try {
+            expected = fill(storageManager, 100);
+            storageManager.writeSnapshot(file);
+            storageManager.storeUuidMapping("player1", changed);
+            storageManager.storeUuidMapping("newcomer", added);
+        } finally {
+            storageManager.close();
+        }
+        expected.put("player1", changed);
+        expected.put("newcomer", added);
+
+        UuidStorageManager restored = new UuidStorageManager(dataDirectory, LOGGER);
+        try {
+            assertTrue(restored.initialize(file));
+            for (Map.Entry<String, UUID> mapping : expected.entrySet()) {
+                String username = mapping.getKey();
+                // Only short ASCII names are indexed; the Bloom filter still needs to know the others
+                if (StandardCharsets.US_ASCII.newEncoder().canEncode(username)) {
+                    assertEquals(mapping.getValue(), restored.getCachedUuid(username), username);
+                } else {
+                    assertNull(restored.getCachedUuid(username), username);
+                }
+                assertTrue(restored.isKnownUsername(username), username);
+                assertEquals(mapping.getValue(), restored.getUuid(username), username);
+            }
+            assertFalse(restored.isKnownUsername("never-seen-before"));
+        } finally {
+            restored.close();
+        }
+    }
+
+    @Test
+    void damagedSnapshotIsIgnored() throws Exception {
+        Path file = dataDirectory.resolve(MappingSnapshot.FILE_NAME);
+        UuidStorageManager storageManager = new UuidStorageManager(dataDirectory, LOGGER);
+        storageManager.initialize();
+        try {
+            fill(storageManager, 100);
+            storageManager.writeSnapshot(file);
+        } finally {
+            storageManager.close();
+        }
+        byte[] data = Files.readAllBytes(file);
+        data[data.length / 2] ^= 0x01;
+        Files.write(file, data);
+
+        assertThrows(IOException.class, () -> MappingSnapshot.read(file));
+        UuidStorageManager restored = new UuidStorageManager(dataDirectory, LOGGER);
+        try {
+            assertFalse(restored.initialize(file));
+            assertNull(restored.getCachedUuid("player1"));
+            assertTrue(restored.isKnownUsername("player1"));
+        } finally {
+            restored.close();
+        }
+    }
+
+    @Test
+    void missingSnapshotReadsAsNull() throws Exception {
+        assertNull(MappingSnapshot.read(dataDirectory.resolve(MappingSnapshot.FILE_NAME)));
+    }
+}
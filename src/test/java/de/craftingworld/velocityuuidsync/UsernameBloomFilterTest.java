@@ -0,0 +1,53 @@
+package de.craftingworld.velocityuuidsync;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UsernameBloomFilterTest {
+
+    private static void putBytes(UsernameBloomFilter filter, String username) {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        // A reused buffer with leftovers of a longer name, as the snapshot decoder passes it
+        byte[] buffer = Arrays.copyOf(name, name.length + 8);
+        Arrays.fill(buffer, name.length, buffer.length, (byte) 'x');
+        filter.put(buffer, name.length);
+    }
+
+    @Test
+    void asciiBytesMatchTheirChars() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(1000, 0.0001);
+        putBytes(filter, "notch_123");
+        assertTrue(filter.mightContain("notch_123"));
+        assertFalse(filter.mightContain("notch_123x"));
+    }
+
+    @Test
+    void nonAsciiBytesMatchTheirChars() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(1000, 0.0001);
+        putBytes(filter, "spieler_äöü");
+        putBytes(filter, "игрок");
+        assertTrue(filter.mightContain("spieler_äöü"));
+        assertTrue(filter.mightContain("игрок"));
+    }
+
+    @Test
+    void saturatesOncePastCapacity() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(100, 0.01);
+        for (int i = 0; i < 100; i++) {
+            filter.put("player" + i);
+        }
+        assertFalse(filter.isSaturated());
+        for (int i = 100; i < 300; i++) {
+            filter.put("player" + i);
+        }
+        assertTrue(filter.isSaturated());
+        for (int i = 0; i < 300; i++) {
+            assertTrue(filter.mightContain("player" + i));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package de.craftingworld.velocityuuidsync;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidCacheTest {
+
+    @ParameterizedTest
+    @EnumSource(UuidCache.EvictionPolicy.class)
+    void staysWithinItsSizeAndCountsEvictions(UuidCache.EvictionPolicy policy) {
+        UuidCache cache = new UuidCache(1000, policy);
+        for (int i = 0; i < 5000; i++) {
+            cache.put("player" + i, UUID.randomUUID());
+        }
+        assertTrue(cache.size() <= 1000, "size " + cache.size());
+        assertEquals(5000 - cache.size(), cache.getEvictions());
+    }
+
+    @ParameterizedTest
+    @EnumSource(UuidCache.EvictionPolicy.class)
+    void countsHitsAndMissesButNotPeeks(UuidCache.EvictionPolicy policy) {
+        UuidCache cache = new UuidCache(100, policy);
+        UUID uuid = UUID.randomUUID();
+        cache.put("alice", uuid);
+
+        assertEquals(uuid, cache.get("alice"));
+        assertNull(cache.get("bob"));
+        assertEquals(uuid, cache.peek("alice"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @ParameterizedTest
+    @EnumSource(UuidCache.EvictionPolicy.class)
+    void conditionalInvalidateKeepsNewerEntries(UuidCache.EvictionPolicy policy) {
+        UuidCache cache = new UuidCache(100, policy);
+        UUID older = UUID.randomUUID();
+        UUID newer = UUID.randomUUID();
+        cache.put("alice", older);
+        cache.put("alice", newer);
+
+        cache.invalidate("alice", older);
+        assertEquals(newer, cache.peek("alice"));
+        cache.invalidate("alice", newer);
+        assertNull(cache.peek("alice"));
+    }
+
+    @Test
+    void lruDropsTheLeastRecentlyUsedEntry() {
+        // Below the segment threshold, so all entries share one segment
+        UuidCache cache = new UuidCache(3);
+        cache.put("a", UUID.randomUUID());
+        cache.put("b", UUID.randomUUID());
+        cache.put("c", UUID.randomUUID());
+        cache.get("a");
+        cache.put("d", UUID.randomUUID());
+
+        assertNull(cache.peek("b"));
+        assertEquals(3, cache.size());
+    }
+
+    /**
+     * Regular players log in between bursts of first-time names that are larger than the cache.
+     * Returns how many regulars the last round found in the cache.
+     */
+    private static int regularsCachedThroughBursts(UuidCache.EvictionPolicy policy) {
+        UuidCache cache = new UuidCache(200, policy);
+        int hits = 0;
+        int once = 0;
+        for (int round = 0; round < 20; round++) {
+            hits = 0;
+            for (int i = 0; i < 100; i++) {
+                if (cache.get("regular" + i) != null) {
+                    hits++;
+                } else {
+                    cache.put("regular" + i, UUID.randomUUID());
+                }
+            }
+            for (int i = 0; i < 500; i++) {
+                cache.put("once" + once++, UUID.randomUUID());
+            }
+        }
+        return hits;
+    }
+
+    @Test
+    void tinyLfuKeepsRegularsThroughBursts() {
+        int tinyLfu = regularsCachedThroughBursts(UuidCache.EvictionPolicy.TINY_LFU);
+        int lru = regularsCachedThroughBursts(UuidCache.EvictionPolicy.LRU);
+        assertTrue(tinyLfu >= 90, "W-TinyLFU kept " + tinyLfu + " of 100 regulars");
+        assertTrue(lru < 10, "LRU kept " + lru + " of 100 regulars");
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        UuidCache cache = new UuidCache(0);
+        cache.put("alice", UUID.randomUUID());
+        assertNull(cache.get("alice"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void policyNamesAreParsedLeniently() {
+        assertEquals(UuidCache.EvictionPolicy.TINY_LFU, UuidCache.EvictionPolicy.fromName("tinylfu"));
+        assertEquals(UuidCache.EvictionPolicy.TINY_LFU, UuidCache.EvictionPolicy.fromName(" tiny-lfu "));
+        assertEquals(UuidCache.EvictionPolicy.LRU, UuidCache.EvictionPolicy.fromName("LRU"));
+        assertThrows(IllegalArgumentException.class, () -> UuidCache.EvictionPolicy.fromName("random"));
+    }
+}
@@ -0,0 +1,150 @@
+package de.craftingworld.velocityuuidsync;
+
+import de.craftingworld.velocityuuidsync.storage.InMemoryUuidStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidLookupServiceTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UuidLookupServiceTest.class);
+
+    /**
+     * Store whose reads block until released, as a locked or stalled database would.
+     */
+    private static final class StalledStore extends InMemoryUuidStore {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public UUID get(String username) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.get(username);
+        }
+    }
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static UuidStorageManager open(InMemoryUuidStore store) throws Exception {
+        UuidStorageManager storageManager = new UuidStorageManager(store, LOGGER, 100);
+        storageManager.initialize();
+        return storageManager;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void answersFromStorageWithinTheDeadline() throws Exception {
+        InMemoryUuidStore store = new InMemoryUuidStore();
+        UUID uuid = UUID.randomUUID();
+        store.put("alice", uuid);
+        UuidLookupService service = new UuidLookupService(open(store), executor, 4, 5_000);
+
+        assertEquals(uuid, service.lookup("Alice").get(5, TimeUnit.SECONDS));
+        assertEquals(0, service.getTimeouts());
+        assertEquals(0, service.getInFlight());
+    }
+
+    @Test
+    void stalledLookupFallsBackToTheCacheAtTheDeadline() throws Exception {
+        StalledStore store = new StalledStore();
+        UuidStorageManager storageManager = open(store);
+        UUID cached = UUID.randomUUID();
+        storageManager.getCache().put("alice", cached);
+        UuidLookupService service = new UuidLookupService(storageManager, executor, 4, 50);
+
+        try {
+            assertEquals(cached, service.lookup("Alice").get(5, TimeUnit.SECONDS));
+            assertNull(service.lookup("Bob").get(5, TimeUnit.SECONDS));
+            // Counted right after the deadline completes the future
+            awaitUntil(() -> service.getTimeouts() == 2);
+            assertEquals(2, service.getTimeouts());
+            // Permits stay taken until storage actually answers
+            assertEquals(2, service.getInFlight());
+        } finally {
+            store.release.countDown();
+        }
+        awaitUntil(() -> service.getInFlight() == 0);
+        assertEquals(0, service.getInFlight());
+    }
+
+    @Test
+    void lookupsBeyondTheInFlightLimitAreShed() throws Exception {
+        StalledStore store = new StalledStore();
+        UuidLookupService service = new UuidLookupService(open(store), executor, 2, 0);
+
+        try {
+            CompletableFuture<UUID> first = service.lookup("alice");
+            CompletableFuture<UUID> second = service.lookup("bob");
+            CompletableFuture<UUID> third = service.lookup("carol");
+
+            assertTrue(third.isDone());
+            assertNull(third.get());
+            assertEquals(1, service.getShed());
+            assertEquals(2, service.getInFlight());
+
+            store.release.countDown();
+            assertNull(first.get(5, TimeUnit.SECONDS));
+            assertNull(second.get(5, TimeUnit.SECONDS));
+            assertEquals(0, service.getTimeouts());
+        } finally {
+            store.release.countDown();
+        }
+    }
+
+    @Test
+    void storageFailureIsPassedOn() throws Exception {
+        InMemoryUuidStore store = new InMemoryUuidStore() {
+            @Override
+            public UUID get(String username) {
+                throw new IllegalStateException("database is locked");
+            }
+        };
+        UuidLookupService service = new UuidLookupService(open(store), executor, 4, 5_000);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> service.lookup("alice").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(0, service.getInFlight());
+    }
+
+    @Test
+    void rejectedLookupReturnsItsPermit() throws Exception {
+        UuidLookupService service = new UuidLookupService(open(new InMemoryUuidStore()),
+                command -> { throw new RejectedExecutionException("shutting down"); }, 1, 5_000);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> service.lookup("alice").get());
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(0, service.getInFlight());
+    }
+}
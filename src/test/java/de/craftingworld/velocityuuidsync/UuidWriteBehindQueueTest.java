@@ -0,0 +1,80 @@
+package de.craftingworld.velocityuuidsync;
+
+import de.craftingworld.velocityuuidsync.storage.InMemoryUuidStore;
+import de.craftingworld.velocityuuidsync.storage.UuidMapping;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidWriteBehindQueueTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UuidWriteBehindQueueTest.class);
+
+    /**
+     * Store whose batch writes always fail, as a full disk or a locked database would.
+     */
+    private static final class FailingStore extends InMemoryUuidStore {
+        @Override
+        public void putAll(List<UuidMapping> batch) {
+            throw new IllegalStateException(new SQLException("disk I/O error"));
+        }
+    }
+
+    private static UuidStorageManager open(InMemoryUuidStore store) throws Exception {
+        UuidStorageManager storageManager = new UuidStorageManager(store, LOGGER, 100);
+        storageManager.initialize();
+        return storageManager;
+    }
+
+    @Test
+    void persistedMappingLetsTheNextLoginSkipItsWrite() throws Exception {
+        InMemoryUuidStore store = new InMemoryUuidStore();
+        UuidStorageManager storageManager = open(store);
+        UuidWriteBehindQueue queue = new UuidWriteBehindQueue(storageManager, LOGGER, 10, 10, 10);
+        queue.start();
+        UUID uuid = UUID.randomUUID();
+
+        assertTrue(queue.offer("Alice", uuid));
+        assertEquals(uuid, storageManager.getCachedUuid("alice"));
+        assertFalse(storageManager.skipUnchangedMapping("Alice", uuid));
+        queue.shutdown();
+
+        assertEquals(0, queue.getFailedWrites());
+        assertEquals(uuid, store.get("alice"));
+        assertTrue(storageManager.skipUnchangedMapping("Alice", uuid));
+    }
+
+    @Test
+    void failedBatchIsForgotten() throws Exception {
+        UuidStorageManager storageManager = open(new FailingStore());
+        UuidWriteBehindQueue queue = new UuidWriteBehindQueue(storageManager, LOGGER, 10, 10, 10);
+        queue.start();
+        UUID uuid = UUID.randomUUID();
+
+        assertTrue(queue.offer("Alice", uuid));
+        queue.shutdown();
+
+        assertEquals(1, queue.getFailedWrites());
+        assertNull(storageManager.getCachedUuid("alice"));
+        assertFalse(storageManager.skipUnchangedMapping("Alice", uuid));
+    }
+
+    @Test
+    void stoppedQueueRefusesAndLeavesNothingPrimed() throws Exception {
+        UuidStorageManager storageManager = open(new InMemoryUuidStore());
+        UuidWriteBehindQueue queue = new UuidWriteBehindQueue(storageManager, LOGGER, 10, 10, 10);
+        UUID uuid = UUID.randomUUID();
+
+        assertFalse(queue.offer("Alice", uuid));
+        assertNull(storageManager.getCachedUuid("alice"));
+    }
+}
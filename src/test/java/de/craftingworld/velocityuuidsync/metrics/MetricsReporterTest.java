@@ -0,0 +1,81 @@
+package de.craftingworld.velocityuuidsync.metrics;
+
+import de.craftingworld.velocityuuidsync.UuidLookupService;
+import de.craftingworld.velocityuuidsync.UuidStorageManager;
+import de.craftingworld.velocityuuidsync.UuidWriteBehindQueue;
+import de.craftingworld.velocityuuidsync.storage.InMemoryUuidStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsReporterTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsReporterTest.class);
+
+    @TempDir
+    Path directory;
+
+    private static MetricsReporter reporter(HandlerMetrics handlerMetrics) throws Exception {
+        UuidStorageManager storageManager = new UuidStorageManager(new InMemoryUuidStore(), LOGGER, 100);
+        storageManager.initialize();
+        storageManager.getCache().put("alice", UUID.randomUUID());
+        storageManager.getCache().get("alice");
+        storageManager.getCache().get("bob");
+        UuidWriteBehindQueue writeQueue = new UuidWriteBehindQueue(storageManager, LOGGER, 10, 10, 10);
+        UuidLookupService lookupService = new UuidLookupService(storageManager, Runnable::run, 4, 0);
+        return new MetricsReporter(storageManager, writeQueue, lookupService, handlerMetrics);
+    }
+
+    @Test
+    void prometheusTextHasTypedSummariesCountersAndGauges() throws Exception {
+        HandlerMetrics handlerMetrics = new HandlerMetrics();
+        handlerMetrics.getLoginLatency().record(2_000_000);
+        handlerMetrics.recordError();
+        String text = reporter(handlerMetrics).toPrometheus();
+
+        assertTrue(text.contains("# TYPE velocity_uuid_sync_login_handler_seconds summary\n"), text);
+        assertTrue(text.contains("velocity_uuid_sync_login_handler_seconds{quantile=\"0.99\"} 0.002"), text);
+        assertTrue(text.contains("velocity_uuid_sync_login_handler_seconds_count 1\n"), text);
+        assertTrue(text.contains("# TYPE velocity_uuid_sync_cache_hits_total counter\nvelocity_uuid_sync_cache_hits_total 1\n"), text);
+        assertTrue(text.contains("velocity_uuid_sync_cache_misses_total 1\n"), text);
+        assertTrue(text.contains("velocity_uuid_sync_handler_errors_total 1\n"), text);
+        assertTrue(text.contains("# TYPE velocity_uuid_sync_cache_size gauge\nvelocity_uuid_sync_cache_size 1\n"), text);
+        // Without a replicator its counters are left out rather than reported as zero
+        assertFalse(text.contains("replication_"), text);
+        for (String line : text.split("\n")) {
+            assertTrue(line.startsWith("# TYPE velocity_uuid_sync_") || line.startsWith("velocity_uuid_sync_"), line);
+        }
+    }
+
+    @Test
+    void fileIsReplacedAtomically() throws Exception {
+        MetricsReporter reporter = reporter(new HandlerMetrics());
+        Path file = directory.resolve("velocity_uuid_sync.prom");
+        Files.writeString(file, "stale");
+
+        reporter.writePrometheusFile(file);
+
+        assertEquals(reporter.toPrometheus(), Files.readString(file));
+        assertFalse(Files.exists(directory.resolve("velocity_uuid_sync.prom.tmp")));
+    }
+
+    @Test
+    void summaryHasOneLinePerHistogramThenCountersAndGauges() throws Exception {
+        List<String> lines = reporter(new HandlerMetrics()).summaryLines();
+
+        assertEquals(7, lines.size());
+        assertTrue(lines.get(0).startsWith("login_handler: n=0 p50=0.000ms"), lines.get(0));
+        assertTrue(lines.get(5).startsWith("cache_hits=1, cache_misses=1"), lines.get(5));
+        assertTrue(lines.get(6).startsWith("cache_size=1"), lines.get(6));
+    }
+}
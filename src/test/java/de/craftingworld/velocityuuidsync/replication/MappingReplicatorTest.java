@@ -0,0 +1,238 @@
+package de.craftingworld.velocityuuidsync.replication;
+
+import de.craftingworld.velocityuuidsync.UuidStorageManager;
+import de.craftingworld.velocityuuidsync.storage.InMemoryUuidStore;
+import de.craftingworld.velocityuuidsync.storage.UuidMapping;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappingReplicatorTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappingReplicatorTest.class);
+
+    @TempDir
+    Path directory;
+
+    private UuidStorageManager storageManager;
+    private MappingReplicator replicator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storageManager = new UuidStorageManager(new InMemoryUuidStore(), LOGGER, 100);
+        storageManager.initialize();
+        replicator = open();
+    }
+
+    private MappingReplicator open() throws Exception {
+        MappingReplicator opened = new MappingReplicator(storageManager, LOGGER, directory, "proxy-a", 1000);
+        opened.openLog();
+        storageManager.setWriteListener(opened);
+        return opened;
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicator.stop();
+        storageManager.close();
+    }
+
+    /**
+     * Append entries to a log the way another proxy would.
+     */
+    private Path append(String proxyId, ChangeLog.Entry... entries) throws Exception {
+        Path log = directory.resolve(proxyId + ChangeLog.FILE_SUFFIX);
+        if (!Files.exists(log)) {
+            Files.write(log, ChangeLog.HEADER);
+        }
+        int size = 0;
+        for (ChangeLog.Entry entry : entries) {
+            size += ChangeLog.encodedSize(entry);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (ChangeLog.Entry entry : entries) {
+            ChangeLog.encode(entry, buffer);
+        }
+        Files.write(log, buffer.array(), StandardOpenOption.APPEND);
+        return log;
+    }
+
+    @Test
+    void newerRemoteWriteIsApplied() throws Exception {
+        UUID local = UUID.randomUUID();
+        UUID remote = UUID.randomUUID();
+        storageManager.storeUuidMapping("alice", local);
+
+        append("proxy-b", new ChangeLog.Entry("alice", remote, System.currentTimeMillis() + 60_000));
+        replicator.poll();
+
+        assertEquals(remote, storageManager.getStore().get("alice"));
+        assertEquals(remote, storageManager.getUuid("alice"));
+        assertEquals(1, replicator.getApplied());
+        assertEquals(0, replicator.getSuperseded());
+    }
+
+    @Test
+    void olderRemoteWriteLosesToLocalPublish() throws Exception {
+        UUID local = UUID.randomUUID();
+        UUID remote = UUID.randomUUID();
+        storageManager.storeUuidMapping("alice", local);
+
+        append("proxy-b", new ChangeLog.Entry("alice", remote, System.currentTimeMillis() - 60_000));
+        replicator.poll();
+
+        assertEquals(local, storageManager.getStore().get("alice"));
+        assertEquals(0, replicator.getApplied());
+        assertEquals(1, replicator.getSuperseded());
+    }
+
+    @Test
+    void newestEntryAcrossLogsWins() throws Exception {
+        long now = System.currentTimeMillis();
+        UUID older = UUID.randomUUID();
+        UUID newer = UUID.randomUUID();
+        append("proxy-b", new ChangeLog.Entry("alice", newer, now));
+        append("proxy-c", new ChangeLog.Entry("alice", older, now - 1000));
+        replicator.poll();
+
+        assertEquals(newer, storageManager.getStore().get("alice"));
+        assertEquals(1, replicator.getApplied());
+    }
+
+    @Test
+    void localWritesAreAppendedToTheOwnLog() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        storageManager.storeUuidMappings(List.of(new UuidMapping("alice", uuid), new UuidMapping("bob", uuid)));
+
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("proxy-a" + ChangeLog.FILE_SUFFIX)));
+        log.position(ChangeLog.HEADER.length);
+        ChangeLog.Entry alice = ChangeLog.decode(log);
+        ChangeLog.Entry bob = ChangeLog.decode(log);
+        assertEquals("bob", bob.username());
+        assertEquals(uuid, alice.uuid());
+        assertTrue(bob.timestamp() > alice.timestamp());
+        assertFalse(log.hasRemaining());
+        assertEquals(2, replicator.getPublished());
+    }
+
+    @Test
+    void ownLogIsNotAppliedAgain() throws Exception {
+        UUID logged = UUID.randomUUID();
+        UUID stored = UUID.randomUUID();
+        append("proxy-a", new ChangeLog.Entry("alice", logged, System.currentTimeMillis()));
+        storageManager.storeUuidMapping("alice", stored);
+        replicator.poll();
+
+        assertEquals(stored, storageManager.getStore().get("alice"));
+        assertEquals(0, replicator.getApplied());
+    }
+
+    @Test
+    void incompleteRecordIsReadOnceComplete() throws Exception {
+        UUID remote = UUID.randomUUID();
+        ChangeLog.Entry entry = new ChangeLog.Entry("alice", remote, System.currentTimeMillis());
+        ByteBuffer buffer = ByteBuffer.allocate(ChangeLog.encodedSize(entry));
+        ChangeLog.encode(entry, buffer);
+        Path log = directory.resolve("proxy-b" + ChangeLog.FILE_SUFFIX);
+        Files.write(log, ChangeLog.HEADER);
+        Files.write(log, Arrays.copyOf(buffer.array(), 10), StandardOpenOption.APPEND);
+        replicator.poll();
+        assertNull(storageManager.getStore().get("alice"));
+
+        Files.write(log, Arrays.copyOfRange(buffer.array(), 10, buffer.capacity()), StandardOpenOption.APPEND);
+        replicator.poll();
+        assertEquals(remote, storageManager.getStore().get("alice"));
+    }
+
+    @Test
+    void damagedRecordIsSkippedOnceARecordAfterItDecodes() throws Exception {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        Path log = append("proxy-b", new ChangeLog.Entry("alice", alice, now), new ChangeLog.Entry("bob", bob, now));
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[ChangeLog.HEADER.length + 12] ^= 0x04;
+        Files.write(log, bytes);
+
+        // Left alone once, as the record may only be partly visible yet
+        replicator.poll();
+        assertNull(storageManager.getStore().get("bob"));
+
+        replicator.poll();
+        assertNull(storageManager.getStore().get("alice"));
+        assertEquals(bob, storageManager.getStore().get("bob"));
+    }
+
+    @Test
+    void restartResumesFromTheSavedState() throws Exception {
+        UUID remote = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        append("proxy-b", new ChangeLog.Entry("alice", remote, now));
+        replicator.poll();
+        assertEquals(1, replicator.getApplied());
+        replicator.stop();
+
+        // Not read again, so the mapping stored since stays
+        UUID stored = UUID.randomUUID();
+        storageManager.getStore().put("alice", stored);
+        replicator = open();
+        replicator.poll();
+        assertEquals(stored, storageManager.getStore().get("alice"));
+
+        // The remembered entry still beats an older one
+        append("proxy-c", new ChangeLog.Entry("alice", UUID.randomUUID(), now - 1000));
+        replicator.poll();
+        assertEquals(stored, storageManager.getStore().get("alice"));
+        assertEquals(0, replicator.getApplied());
+        assertEquals(1, replicator.getSuperseded());
+    }
+
+    @Test
+    void entriesOlderThanPrunedOnesOnlyFillInMissingNames() throws Exception {
+        long old = System.currentTimeMillis() - 2 * MappingReplicator.SETTLED_AFTER_MILLIS;
+        append("proxy-b", new ChangeLog.Entry("carol", UUID.randomUUID(), old));
+        replicator.poll();
+        assertEquals(1, replicator.getApplied());
+
+        UUID stored = UUID.randomUUID();
+        UUID dave = UUID.randomUUID();
+        storageManager.getStore().put("alice", stored);
+        append("proxy-c", new ChangeLog.Entry("alice", UUID.randomUUID(), old + 1),
+                new ChangeLog.Entry("dave", dave, old + 1));
+        replicator.poll();
+        assertEquals(stored, storageManager.getStore().get("alice"));
+        assertEquals(dave, storageManager.getStore().get("dave"));
+        assertEquals(2, replicator.getApplied());
+    }
+
+    @Test
+    void queuedLocalWriteReplacesAReplicatedCacheEntry() throws Exception {
+        UUID local = UUID.randomUUID();
+        UUID remote = UUID.randomUUID();
+        storageManager.primeUnflushedMapping("alice", local);
+        append("proxy-b", new ChangeLog.Entry("alice", remote, System.currentTimeMillis() - 1000));
+        replicator.poll();
+        assertEquals(remote, storageManager.getCachedUuid("alice"));
+
+        // The write-behind queue persists its batch only now
+        storageManager.storeUuidMappings(List.of(new UuidMapping("alice", local)));
+        assertEquals(local, storageManager.getStore().get("alice"));
+        assertEquals(local, storageManager.getCachedUuid("alice"));
+    }
+}
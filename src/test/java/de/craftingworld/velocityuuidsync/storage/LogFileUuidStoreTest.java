@@ -0,0 +1,111 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LogFileUuidStoreTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogFileUuidStoreTest.class);
+
+    @TempDir
+    Path directory;
+
+    private LogFileUuidStore open(Path log) throws Exception {
+        LogFileUuidStore store = new LogFileUuidStore(log, LOGGER);
+        store.initialize();
+        return store;
+    }
+
+    @Test
+    void tornTailIsCutOffBeforeNewRecordsAreAppended() throws Exception {
+        Path log = directory.resolve("uuid-mappings.log");
+        UUID alice = UUID.randomUUID();
+        LogFileUuidStore store = open(log);
+        store.put("alice", alice);
+        store.close();
+        long complete = Files.size(log);
+
+        // A crash in the middle of a record: its name length and part of the name
+        Files.write(log, new byte[] {0, 9, 'c', 'a'}, StandardOpenOption.APPEND);
+
+        store = open(log);
+        assertEquals(complete, Files.size(log));
+        UUID carol = UUID.randomUUID();
+        store.put("carol", carol);
+        store.close();
+
+        store = open(log);
+        try {
+            assertEquals(alice, store.get("alice"));
+            assertEquals(carol, store.get("carol"));
+            assertEquals(2, store.count());
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void damagedRecordAndEverythingAfterItAreDropped() throws Exception {
+        Path log = directory.resolve("uuid-mappings.log");
+        UUID alice = UUID.randomUUID();
+        LogFileUuidStore store = open(log);
+        store.put("alice", alice);
+        long aliceEnd = Files.size(log);
+        store.put("bob", UUID.randomUUID());
+        store.put("carol", UUID.randomUUID());
+        store.close();
+
+        // Flip one bit of bob's UUID
+        byte[] data = Files.readAllBytes(log);
+        data[(int) aliceEnd + 2 + 3 + 4] ^= 0x10;
+        Files.write(log, data);
+
+        store = open(log);
+        try {
+            assertEquals(alice, store.get("alice"));
+            assertNull(store.get("bob"));
+            assertNull(store.get("carol"));
+            assertEquals(aliceEnd, Files.size(log));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void legacyLogIsConverted() throws Exception {
+        Path log = directory.resolve("uuid-mappings.log");
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(log))) {
+            for (Object[] record : new Object[][] {{"alice", UUID.randomUUID()}, {"bob", bob}, {"alice", alice}}) {
+                out.writeUTF((String) record[0]);
+                out.writeLong(((UUID) record[1]).getMostSignificantBits());
+                out.writeLong(((UUID) record[1]).getLeastSignificantBits());
+            }
+        }
+
+        LogFileUuidStore store = open(log);
+        store.put("carol", UUID.randomUUID());
+        store.close();
+
+        store = open(log);
+        try {
+            assertEquals(alice, store.get("alice"));
+            assertEquals(bob, store.get("bob"));
+            assertEquals(3, store.count());
+        } finally {
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MappedLogUuidStoreTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedLogUuidStoreTest.class);
+
+    @TempDir
+    Path directory;
+
+    private MappedLogUuidStore open() throws Exception {
+        MappedLogUuidStore store = new MappedLogUuidStore(directory, LOGGER);
+        store.initialize();
+        return store;
+    }
+
+    private Path segment(int id, String suffix) {
+        return directory.resolve(String.format("segment-%08d%s", id, suffix));
+    }
+
+    @Test
+    void overlongNameDoesNotFailTheRestOfTheBatch() throws Exception {
+        MappedLogUuidStore store = open();
+        try {
+            UUID alice = UUID.randomUUID();
+            UUID bob = UUID.randomUUID();
+            store.putAll(List.of(new UuidMapping("alice", alice),
+                    new UuidMapping("a_name_of_twenty_chars", UUID.randomUUID()),
+                    new UuidMapping("bob", bob)));
+
+            assertEquals(alice, store.get("alice"));
+            assertEquals(bob, store.get("bob"));
+            assertNull(store.get("a_name_of_twenty_chars"));
+            assertEquals(2, store.count());
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void replayStopsAtADamagedRecord() throws Exception {
+        UUID alice = UUID.randomUUID();
+        MappedLogUuidStore store = open();
+        store.putAll(List.of(new UuidMapping("alice", alice),
+                new UuidMapping("bob", UUID.randomUUID()),
+                new UuidMapping("carol", UUID.randomUUID())));
+        store.close();
+
+        // Flip one bit of bob's UUID, as a crash halfway through writing his record could
+        try (FileChannel channel = FileChannel.open(segment(1, ".seg2"), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer single = ByteBuffer.allocate(1);
+            channel.read(single, MappedLogUuidStore.RECORD_SIZE + 3);
+            single.put(0, (byte) (single.get(0) ^ 0x04)).rewind();
+            channel.write(single, MappedLogUuidStore.RECORD_SIZE + 3);
+        }
+
+        store = open();
+        UUID dave = UUID.randomUUID();
+        try {
+            assertEquals(alice, store.get("alice"));
+            assertNull(store.get("bob"));
+            assertNull(store.get("carol"));
+            store.putAll(List.of(new UuidMapping("dave", dave)));
+        } finally {
+            store.close();
+        }
+
+        // Carol's record after the damaged one must not come back behind the new append
+        store = open();
+        try {
+            assertEquals(alice, store.get("alice"));
+            assertEquals(dave, store.get("dave"));
+            assertNull(store.get("carol"));
+            assertEquals(2, store.count());
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void newestRecordWinsRegardlessOfSegmentOrder() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        MappedLogUuidStore store = open();
+        store.putAll(List.of(new UuidMapping("alice", first)));
+        store.putAll(List.of(new UuidMapping("alice", second)));
+        store.close();
+
+        // A later segment holding a copy of the older record, as compaction leaves behind
+        byte[] older = new byte[MappedLogUuidStore.RECORD_SIZE];
+        try (FileChannel channel = FileChannel.open(segment(1, ".seg2"), StandardOpenOption.READ)) {
+            channel.read(ByteBuffer.wrap(older), 0);
+        }
+        Files.write(segment(9, ".seg2"), older);
+
+        store = open();
+        try {
+            assertEquals(second, store.get("alice"));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void compactionKeepsTheNewestMappings() throws Exception {
+        Map<String, UUID> expected = new HashMap<>();
+        MappedLogUuidStore store = open();
+        try {
+            // Enough overwrites of few names to seal a mostly dead segment
+            for (int round = 0; round < 8; round++) {
+                List<UuidMapping> batch = new ArrayList<>();
+                for (int i = 0; i < 10_000; i++) {
+                    UuidMapping mapping = new UuidMapping("player" + i, UUID.randomUUID());
+                    expected.put(mapping.username(), mapping.uuid());
+                    batch.add(mapping);
+                }
+                store.putAll(batch);
+            }
+            store.compact();
+            store.putAll(List.of(new UuidMapping("player1", UUID.randomUUID())));
+            expected.put("player1", store.get("player1"));
+            assertEquals(expected, store.getAll(expected.keySet()));
+        } finally {
+            store.close();
+        }
+        assertFalse(Files.exists(segment(1, ".seg2")));
+
+        store = open();
+        try {
+            assertEquals(expected.size(), store.count());
+            assertEquals(expected, store.getAll(expected.keySet()));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void legacySegmentsAreConverted() throws Exception {
+        UUID older = UUID.randomUUID();
+        UUID newer = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        ByteBuffer legacy = ByteBuffer.allocate(3 * MappedLogUuidStore.RECORD_SIZE);
+        Object[][] records = {{"alice", newer, 2000L}, {"bob", bob, 1000L}, {"alice", older, 1000L}};
+        for (int i = 0; i < records.length; i++) {
+            int offset = i * MappedLogUuidStore.RECORD_SIZE;
+            byte[] name = ((String) records[i][0]).getBytes(StandardCharsets.UTF_8);
+            legacy.putLong(offset, ((UUID) records[i][1]).getMostSignificantBits());
+            legacy.putLong(offset + 8, ((UUID) records[i][1]).getLeastSignificantBits());
+            legacy.putLong(offset + 16, (Long) records[i][2]);
+            legacy.put(offset + 24, (byte) name.length);
+            legacy.put(offset + 25, name);
+        }
+        Files.write(segment(1, MappedLogUuidStore.LEGACY_SEGMENT_SUFFIX), legacy.array());
+
+        MappedLogUuidStore store = open();
+        store.close();
+        assertFalse(Files.exists(segment(1, MappedLogUuidStore.LEGACY_SEGMENT_SUFFIX)));
+
+        store = open();
+        try {
+            assertEquals(newer, store.get("alice"));
+            assertEquals(bob, store.get("bob"));
+            assertEquals(2, store.count());
+        } finally {
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardedUuidStoreTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardedUuidStoreTest.class);
+    private static final int SHARDS = 4;
+
+    @TempDir
+    Path dataDirectory;
+
+    private Map<String, UUID> fill(UuidStore store, int count) throws Exception {
+        Map<String, UUID> expected = new HashMap<>();
+        List<UuidMapping> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UuidMapping mapping = new UuidMapping("player" + i, UUID.randomUUID());
+            expected.put(mapping.username(), mapping.uuid());
+            batch.add(mapping);
+        }
+        store.putAll(batch);
+        return expected;
+    }
+
+    @Test
+    void everyMappingLandsInItsShard() throws Exception {
+        UuidStore store = StorageEngine.SQLITE.create(dataDirectory, LOGGER, SqliteOptions.DEFAULT.withShards(SHARDS));
+        store.initialize();
+        Map<String, UUID> expected;
+        try {
+            expected = fill(store, 200);
+            for (Map.Entry<String, UUID> mapping : expected.entrySet()) {
+                assertEquals(mapping.getValue(), store.get(mapping.getKey()));
+            }
+            assertEquals(expected, store.getAll(expected.keySet()));
+        } finally {
+            store.close();
+        }
+
+        Path shardDirectory = dataDirectory.resolve(ShardedUuidStore.SHARD_DIRECTORY);
+        assertEquals(SHARDS, ShardedUuidStore.readShardCount(shardDirectory));
+        for (int shard = 0; shard < SHARDS; shard++) {
+            SqliteUuidStore single = new SqliteUuidStore(ShardedUuidStore.shardFile(shardDirectory, shard), LOGGER);
+            single.initialize();
+            try {
+                int expectedShard = shard;
+                single.forEach((username, uuid) -> {
+                    assertEquals(expectedShard, ShardedUuidStore.shardOf(username, SHARDS), username);
+                    assertEquals(expected.get(username), uuid);
+                });
+            } finally {
+                single.close();
+            }
+        }
+    }
+
+    @Test
+    void singleFileStoreRefusesExistingShards() throws Exception {
+        UuidStore sharded = StorageEngine.SQLITE.create(dataDirectory, LOGGER, SqliteOptions.DEFAULT.withShards(SHARDS));
+        sharded.initialize();
+        sharded.close();
+
+        assertThrows(IllegalStateException.class,
+                () -> StorageEngine.SQLITE.create(dataDirectory, LOGGER, SqliteOptions.DEFAULT));
+    }
+
+    @Test
+    void shardedStoreRefusesADifferentShardCount() throws Exception {
+        UuidStore sharded = StorageEngine.SQLITE.create(dataDirectory, LOGGER, SqliteOptions.DEFAULT.withShards(SHARDS));
+        sharded.initialize();
+        sharded.close();
+
+        UuidStore resized = StorageEngine.SQLITE.create(dataDirectory, LOGGER, SqliteOptions.DEFAULT.withShards(SHARDS * 2));
+        assertThrows(IllegalStateException.class, resized::initialize);
+    }
+
+    @Test
+    void shardedStoreRefusesAnUnmigratedSingleFile() throws Exception {
+        UuidStore single = StorageEngine.SQLITE.create(dataDirectory, LOGGER, SqliteOptions.DEFAULT);
+        single.initialize();
+        single.put("alice", UUID.randomUUID());
+        single.close();
+
+        UuidStore sharded = StorageEngine.SQLITE.create(dataDirectory, LOGGER, SqliteOptions.DEFAULT.withShards(SHARDS));
+        assertThrows(IllegalStateException.class, sharded::initialize);
+        assertFalse(Files.exists(dataDirectory.resolve(ShardedUuidStore.SHARD_DIRECTORY)));
+    }
+
+    @Test
+    void migratorSplitsASingleFileIntoShards() throws Exception {
+        UuidStore single = StorageEngine.SQLITE.create(dataDirectory, LOGGER, SqliteOptions.DEFAULT);
+        single.initialize();
+        Map<String, UUID> expected;
+        try {
+            expected = fill(single, 500);
+        } finally {
+            single.close();
+        }
+
+        ShardMigrator.migrate(dataDirectory, SHARDS, LOGGER);
+
+        UuidStore sharded = StorageEngine.SQLITE.create(dataDirectory, LOGGER, SqliteOptions.DEFAULT.withShards(SHARDS));
+        sharded.initialize();
+        try {
+            assertEquals(expected.size(), sharded.count());
+            assertEquals(expected, sharded.getAll(expected.keySet()));
+        } finally {
+            sharded.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqliteUuidStoreTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqliteUuidStoreTest.class);
+
+    @TempDir
+    Path directory;
+
+    private Connection connect(Path db) throws Exception {
+        return DriverManager.getConnection("jdbc:sqlite:" + db);
+    }
+
+    @Test
+    void interruptedTextSchemaMigrationResumes() throws Exception {
+        Path db = directory.resolve("uuid-mappings.db");
+        List<UUID> uuids = new ArrayList<>();
+        try (Connection connection = connect(db); Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE uuid_mappings (username TEXT PRIMARY KEY, uuid TEXT NOT NULL, "
+                    + "last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE TABLE uuid_mappings_v2 (username TEXT PRIMARY KEY, uuid_msb INTEGER NOT NULL, "
+                    + "uuid_lsb INTEGER NOT NULL, last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("PRAGMA user_version = 1");
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO uuid_mappings (username, uuid) VALUES (?, ?)");
+                 PreparedStatement copied = connection.prepareStatement(
+                         "INSERT INTO uuid_mappings_v2 (username, uuid_msb, uuid_lsb) VALUES (?, ?, ?)")) {
+                for (int i = 0; i < 100; i++) {
+                    UUID uuid = UUID.randomUUID();
+                    uuids.add(uuid);
+                    insert.setString(1, String.format("player%03d", i));
+                    insert.setString(2, uuid.toString());
+                    insert.executeUpdate();
+                    // The first chunk was committed before the interruption
+                    if (i < 40) {
+                        copied.setString(1, String.format("player%03d", i));
+                        copied.setLong(2, uuid.getMostSignificantBits());
+                        copied.setLong(3, uuid.getLeastSignificantBits());
+                        copied.executeUpdate();
+                    }
+                }
+                insert.setString(1, "broken");
+                insert.setString(2, "not-a-uuid");
+                insert.executeUpdate();
+            }
+        }
+
+        SqliteUuidStore store = new SqliteUuidStore(db, LOGGER);
+        store.initialize();
+        try {
+            for (int i = 0; i < uuids.size(); i++) {
+                assertEquals(uuids.get(i), store.get(String.format("player%03d", i)));
+            }
+            assertNull(store.get("broken"));
+            assertEquals(uuids.size(), store.count());
+        } finally {
+            store.close();
+        }
+        try (Connection connection = connect(db); Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            assertTrue(rs.next());
+            assertEquals(SqliteUuidStore.SCHEMA_VERSION, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void touchInsertsMissingRowsAndKeepsStoredUuids() throws Exception {
+        SqliteUuidStore store = new SqliteUuidStore(directory.resolve("uuid-mappings.db"), LOGGER);
+        store.initialize();
+        try {
+            UUID stored = UUID.randomUUID();
+            UUID missing = UUID.randomUUID();
+            store.put("alice", stored);
+            store.touchAll(List.of(new UuidMapping("alice", UUID.randomUUID()), new UuidMapping("bob", missing)));
+            assertEquals(stored, store.get("alice"));
+            assertEquals(missing, store.get("bob"));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void historyRecordsChangesInEpochMillis() throws Exception {
+        SqliteUuidStore store = new SqliteUuidStore(directory.resolve("uuid-mappings.db"), LOGGER);
+        store.initialize();
+        try {
+            UUID first = UUID.randomUUID();
+            UUID second = UUID.randomUUID();
+            long before = System.currentTimeMillis();
+            store.put("alice", first);
+            store.put("alice", first);
+            store.put("alice", second);
+            long after = System.currentTimeMillis();
+
+            List<NameChange> history = store.getNameHistory(second);
+            assertEquals(1, history.size());
+            assertEquals("alice", history.get(0).username());
+            long changedAt = history.get(0).changedAt().toEpochMilli();
+            assertTrue(changedAt >= before - 1 && changedAt <= after + 1, "changed at " + changedAt);
+
+            List<String> changed = new ArrayList<>();
+            store.forEachChangedSince(before - 1, (username, uuid) -> changed.add(username + "=" + uuid));
+            assertEquals(List.of("alice=" + first, "alice=" + second), changed);
+        } finally {
+            store.close();
+        }
+    }
+}
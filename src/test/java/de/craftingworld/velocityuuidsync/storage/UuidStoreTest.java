@@ -0,0 +1,120 @@
+package de.craftingworld.velocityuuidsync.storage;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Behaviour every storage engine must share.
+ */
+class UuidStoreTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UuidStoreTest.class);
+
+    @TempDir
+    Path dataDirectory;
+
+    static Stream<Arguments> engines() {
+        return Stream.of(
+                Arguments.of(StorageEngine.MEMORY, 1),
+                Arguments.of(StorageEngine.LOG, 1),
+                Arguments.of(StorageEngine.MMAP, 1),
+                Arguments.of(StorageEngine.SQLITE, 1),
+                Arguments.of(StorageEngine.SQLITE, 3));
+    }
+
+    private UuidStore open(StorageEngine engine, int shards) throws Exception {
+        UuidStore store = engine.create(dataDirectory, LOGGER, SqliteOptions.DEFAULT.withShards(shards));
+        store.initialize();
+        return store;
+    }
+
+    @ParameterizedTest(name = "{0} x{1}")
+    @MethodSource("engines")
+    void putGetAndOverwrite(StorageEngine engine, int shards) throws Exception {
+        UuidStore store = open(engine, shards);
+        try {
+            UUID first = UUID.randomUUID();
+            UUID second = UUID.randomUUID();
+            store.put("alice", first);
+            assertEquals(first, store.get("alice"));
+            store.put("alice", second);
+            assertEquals(second, store.get("alice"));
+            assertNull(store.get("bob"));
+            assertEquals(1, store.count());
+        } finally {
+            store.close();
+        }
+    }
+
+    @ParameterizedTest(name = "{0} x{1}")
+    @MethodSource("engines")
+    void batchesAreVisibleToEveryReadPath(StorageEngine engine, int shards) throws Exception {
+        UuidStore store = open(engine, shards);
+        try {
+            Map<String, UUID> expected = new HashMap<>();
+            List<UuidMapping> batch = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                UUID uuid = UUID.randomUUID();
+                expected.put("player" + i, uuid);
+                batch.add(new UuidMapping("player" + i, uuid));
+            }
+            store.putAll(batch);
+
+            assertEquals(expected.size(), store.count());
+            assertEquals(expected, store.getAll(expected.keySet()));
+
+            Map<String, UUID> scanned = new HashMap<>();
+            store.forEach(scanned::put);
+            assertEquals(expected, scanned);
+
+            Map<String, UUID> partitioned = new HashMap<>();
+            for (int partition = 0; partition < 4; partition++) {
+                store.forEachInPartition(partition, 4, partitioned::put);
+            }
+            assertEquals(expected, partitioned);
+
+            List<String> ordered = new ArrayList<>();
+            store.forEachInUsernameOrder((username, uuid) -> ordered.add(username));
+            assertEquals(expected.size(), ordered.size());
+        } finally {
+            store.close();
+        }
+    }
+
+    @ParameterizedTest(name = "{0} x{1}")
+    @MethodSource("engines")
+    void mappingsSurviveReopen(StorageEngine engine, int shards) throws Exception {
+        if (engine == StorageEngine.MEMORY) {
+            return;
+        }
+        UUID uuid = UUID.randomUUID();
+        UuidStore store = open(engine, shards);
+        store.put("alice", uuid);
+        store.putAll(List.of(new UuidMapping("bob", uuid)));
+        store.close();
+
+        store = open(engine, shards);
+        try {
+            assertEquals(uuid, store.get("alice"));
+            assertEquals(uuid, store.get("bob"));
+            assertEquals(2, store.count());
+        } finally {
+            store.close();
+        }
+    }
+}